@@ -0,0 +1,191 @@
+package com.ecommerce.backend.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small in-process LRU cache with a size bound and per-entry expiry, optionally
+ * also bounded by total weight (e.g. bytes).
+ * Access is synchronized; critical sections only touch the backing map.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final long defaultTtlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public BoundedCache(int maxSize, Duration defaultTtl) {
+        this(maxSize, Long.MAX_VALUE, value -> 0L, defaultTtl);
+    }
+
+    /**
+     * Creates a cache that evicts least recently used entries once either the
+     * entry count exceeds maxSize or the summed weights exceed maxWeight.
+     */
+    public BoundedCache(int maxSize, long maxWeight, ToLongFunction<V> weigher, Duration defaultTtl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.defaultTtlNanos = defaultTtl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return the cached value, or null when absent or expired
+     */
+    public V getIfPresent(K key) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            if (entry.expiresAtNanos - now <= 0) {
+                entries.remove(key);
+                weight -= entry.weight;
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Read-through lookup. The loader runs outside the lock, so concurrent misses
+     * on the same key may load twice; a null result is not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        long start = System.nanoTime();
+        try {
+            value = loader.apply(key);
+        } finally {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, defaultTtlNanos);
+    }
+
+    /**
+     * Stores a value that expires after the given ttl or the cache default, whichever is sooner.
+     */
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, Math.min(defaultTtlNanos, ttl.toNanos()));
+    }
+
+    private void put(K key, V value, long ttlNanos) {
+        if (ttlNanos <= 0) {
+            invalidate(key);
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos, weigher.applyAsLong(value));
+        if (entry.weight > maxWeight) {
+            invalidate(key);
+            return;
+        }
+        synchronized (this) {
+            Entry<V> previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entry.weight;
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while ((entries.size() > maxSize || weight > maxWeight) && it.hasNext()) {
+                weight -= it.next().getValue().weight;
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry<V> entry = it.next();
+            if (predicate.test(entry.value)) {
+                weight -= entry.weight;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        if (maxWeight != Long.MAX_VALUE) {
+            synchronized (this) {
+                stats.put("weight", weight);
+            }
+            stats.put("maxWeight", maxWeight);
+        }
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+
+        long loadCount = loads.sum();
+        stats.put("loads", loadCount);
+        stats.put("averageLoadMillis", loadCount == 0 ? 0.0 : loadNanos.sum() / 1_000_000.0 / loadCount);
+        return stats;
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos, long weight) {
+    }
+}
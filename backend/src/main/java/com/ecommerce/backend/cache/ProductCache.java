@@ -0,0 +1,69 @@
+package com.ecommerce.backend.cache;
+
+import com.ecommerce.backend.dto.ProductDTO;
+import com.ecommerce.backend.event.CategoryChangedEvent;
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.metrics.MetricsSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caches fully assembled product DTOs by id for the product detail view.
+ * Writes evict after commit; the ttl bounds how stale stock can get when a
+ * load races a concurrent write.
+ */
+@Component
+public class ProductCache implements MetricsSource {
+
+    private final BoundedCache<Long, ProductDTO> cache;
+
+    public ProductCache(
+            @Value("${catalog.product-cache.max-size:5000}") int maxSize,
+            @Value("${catalog.product-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = new BoundedCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public ProductDTO get(Long productId, Function<Long, ProductDTO> loader) {
+        return cache.get(productId, loader);
+    }
+
+    public ProductDTO getIfPresent(Long productId) {
+        return cache.getIfPresent(productId);
+    }
+
+    public void put(ProductDTO product) {
+        cache.put(product.getId(), product);
+    }
+
+    public void evict(Long productId) {
+        cache.invalidate(productId);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.productId());
+    }
+
+    // Cached DTOs carry the category name, so a rename or delete drops that category's products
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        cache.invalidateIf(product -> event.categoryId().equals(product.getCategoryId()));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "productCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,185 @@
+package com.ecommerce.backend.cache;
+
+import com.ecommerce.backend.metrics.MetricsSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the serialized JSON of anonymous catalog GETs ({@code /api/products}
+ * listings and {@code /api/categories}), keyed by catalog version and the
+ * normalized query. Hits are written straight from memory, with a pre-gzipped
+ * copy for larger bodies; a stored ETag lets hits answer conditional GETs
+ * with 304. Runs after the security chain; total body bytes are capped.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final String PRODUCTS_PATH = "/api/products";
+    private static final String CATEGORIES_PATH = "/api/categories";
+    private static final Set<String> PRODUCT_PARAMS = Set.of("page", "size", "categoryId", "search", "cursor");
+    private static final int MIN_GZIP_BYTES = 1024;
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final CatalogVersion catalogVersion;
+    private final BoundedCache<String, CachedResponse> cache;
+    private final AtomicLong observedVersion = new AtomicLong();
+
+    public ResponseCacheFilter(CatalogVersion catalogVersion,
+            @Value("${catalog.response-cache.max-entries:2000}") int maxEntries,
+            @Value("${catalog.response-cache.max-bytes:16777216}") long maxBytes,
+            @Value("${catalog.response-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.catalogVersion = catalogVersion;
+        this.cache = new BoundedCache<>(maxEntries, maxBytes, CachedResponse::weight, Duration.ofSeconds(ttlSeconds));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String query = normalizedQuery(request);
+        if (query == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long version = catalogVersion.current();
+        dropOlderVersions(version);
+        String key = version + ":" + query;
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            writeCached(cached, request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+                byte[] body = wrapper.getContentAsByteArray();
+                cache.put(key, new CachedResponse(wrapper.getContentType(), body,
+                        body.length >= MIN_GZIP_BYTES ? gzip(body) : null,
+                        wrapper.getHeader(HttpHeaders.ETAG),
+                        wrapper.getHeader(HttpHeaders.CACHE_CONTROL)));
+            }
+        } finally {
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * @return the cache key for a cacheable request, or null when the request must bypass the cache
+     */
+    private String normalizedQuery(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+            return null;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Map<String, String[]> parameters = request.getParameterMap();
+        if (CATEGORIES_PATH.equals(path)) {
+            return parameters.isEmpty() ? path : null;
+        }
+        if (!PRODUCTS_PATH.equals(path)) {
+            return null;
+        }
+
+        // Fill in the controller's defaults so "?page=0" and "" share an entry
+        Map<String, String> normalized = new TreeMap<>(Map.of("page", "0", "size", "10"));
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            if (!PRODUCT_PARAMS.contains(parameter.getKey()) || parameter.getValue().length != 1) {
+                return null;
+            }
+            // An empty cursor still selects keyset mode, so it must stay part of the key
+            if (!parameter.getValue()[0].isEmpty() || "cursor".equals(parameter.getKey())) {
+                normalized.put(parameter.getKey(), parameter.getValue()[0]);
+            }
+        }
+        return path + "?" + normalized;
+    }
+
+    private void dropOlderVersions(long version) {
+        long observed = observedVersion.get();
+        if (version > observed && observedVersion.compareAndSet(observed, version)) {
+            cache.invalidateAll();
+        }
+    }
+
+    private void writeCached(CachedResponse cached, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (cached.cacheControl() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cached.cacheControl());
+        }
+        response.setHeader("X-Cache", "HIT");
+        // Conditional GETs that match the stored validator become a 304 without a body
+        if (cached.etag() != null && new ServletWebRequest(request, response).checkNotModified(cached.etag())) {
+            return;
+        }
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] body = cached.body();
+        if (cached.gzipBody() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = cached.gzipBody();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "responseCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(cache.stats());
+        metrics.put("catalogVersion", catalogVersion.current());
+        return metrics;
+    }
+
+    private record CachedResponse(String contentType, byte[] body, byte[] gzipBody,
+            String etag, String cacheControl) {
+
+        long weight() {
+            return ENTRY_OVERHEAD_BYTES + body.length + (gzipBody == null ? 0 : gzipBody.length);
+        }
+    }
+}
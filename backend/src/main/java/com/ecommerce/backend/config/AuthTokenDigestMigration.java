@@ -0,0 +1,47 @@
+package com.ecommerce.backend.config;
+
+import com.ecommerce.backend.model.AuthToken;
+import com.ecommerce.backend.repository.AuthTokenRepository;
+import com.ecommerce.backend.security.TokenDigests;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * One-off migration for tokens issued before token_digest existed: fills in
+ * the digest and clears the plaintext column, a batch per transaction.
+ * Runs once all beans exist but before the web server starts, so no request
+ * ever looks up a legacy token by a digest that is not there yet.
+ */
+@Component
+public class AuthTokenDigestMigration implements SmartInitializingSingleton {
+
+    private final AuthTokenRepository authTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public AuthTokenDigestMigration(AuthTokenRepository authTokenRepository, TransactionTemplate transactionTemplate) {
+        this.authTokenRepository = authTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        int migrated;
+        do {
+            migrated = transactionTemplate.execute(status -> migrateBatch());
+        } while (migrated > 0);
+    }
+
+    private int migrateBatch() {
+        List<AuthToken> legacyTokens = authTokenRepository.findTop500ByTokenDigestIsNullAndTokenIsNotNull();
+        for (AuthToken authToken : legacyTokens) {
+            authToken.setTokenDigest(TokenDigests.sha256Hex(authToken.getToken()));
+            authToken.setToken(null);
+        }
+        authTokenRepository.saveAll(legacyTokens);
+        return legacyTokens.size();
+    }
+}
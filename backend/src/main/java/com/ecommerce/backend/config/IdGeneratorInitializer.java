@@ -0,0 +1,57 @@
+package com.ecommerce.backend.config;
+
+import com.ecommerce.backend.model.IdGenerators;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Moves each pooled id generator past the ids already in its table, so
+ * tables that were filled by AUTO_INCREMENT keep working after the switch.
+ * Runs while the context starts, after Hibernate has updated the schema and
+ * before the server accepts requests.
+ */
+@Component
+public class IdGeneratorInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(IdGeneratorInitializer.class);
+
+    // Generator row -> table it hands out ids for
+    private static final Map<String, String> GENERATED_TABLES = Map.of(
+            "orders", "orders",
+            "order_items", "order_items");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // The factory is only injected so this runs after the schema update
+    public IdGeneratorInitializer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        // Pool connections do not auto-commit (see spring.datasource.hikari.auto-commit)
+        transactionTemplate.executeWithoutResult(status -> GENERATED_TABLES.forEach(this::advance));
+    }
+
+    private void advance(String name, String table) {
+        // A pooled generator hands out (next_val - ALLOCATION_SIZE, next_val] after reading next_val
+        jdbcTemplate.update("INSERT INTO " + IdGenerators.TABLE
+                + " (" + IdGenerators.NAME_COLUMN + ", " + IdGenerators.VALUE_COLUMN + ") "
+                + "SELECT ?, COALESCE(MAX(id), 0) + ? FROM " + table + " "
+                + "ON DUPLICATE KEY UPDATE " + IdGenerators.VALUE_COLUMN + " = GREATEST("
+                + IdGenerators.VALUE_COLUMN + ", VALUES(" + IdGenerators.VALUE_COLUMN + "))",
+                name, IdGenerators.ALLOCATION_SIZE);
+        log.debug("Id generator {} checked against {}", name, table);
+    }
+}
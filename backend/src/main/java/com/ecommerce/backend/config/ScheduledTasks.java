@@ -1,25 +1,76 @@
 package com.ecommerce.backend.config;
 
-import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.idempotency.IdempotencyService;
+import com.ecommerce.backend.inventory.InventoryLedger;
+import com.ecommerce.backend.search.SuggestionService;
+import com.ecommerce.backend.security.TokenRevocationList;
+import com.ecommerce.backend.service.TokenExpiryWriter;
+import com.ecommerce.backend.service.TokenPurgeService;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
+/**
+ * All background jobs. Each gets its own scheduler thread
+ * (spring.task.scheduling.pool.size): keep the pool size in step when adding one.
+ */
 @Configuration
 @EnableScheduling
 public class ScheduledTasks {
 
-    private final AuthService authService;
+    private final TokenPurgeService tokenPurgeService;
+    private final TokenRevocationList tokenRevocationList;
+    private final TokenExpiryWriter tokenExpiryWriter;
+    private final SuggestionService suggestionService;
+    private final InventoryLedger inventoryLedger;
+    private final IdempotencyService idempotencyService;
 
     
-    public ScheduledTasks(AuthService authService) {
-        this.authService = authService;
+    public ScheduledTasks(TokenPurgeService tokenPurgeService, TokenRevocationList tokenRevocationList,
+            TokenExpiryWriter tokenExpiryWriter, SuggestionService suggestionService,
+            InventoryLedger inventoryLedger, IdempotencyService idempotencyService) {
+        this.tokenPurgeService = tokenPurgeService;
+        this.tokenRevocationList = tokenRevocationList;
+        this.tokenExpiryWriter = tokenExpiryWriter;
+        this.suggestionService = suggestionService;
+        this.inventoryLedger = inventoryLedger;
+        this.idempotencyService = idempotencyService;
     }
 
-    // Run every day at midnight
-    @Scheduled(cron = "0 0 0 * * ?")
+    // Small, frequent purges keep auth_tokens short without long-held locks
+    @Scheduled(fixedDelayString = "${auth.token.purge.interval-ms:300000}")
     public void cleanupExpiredTokens() {
-        authService.cleanupExpiredTokens();
+        tokenPurgeService.purgeExpiredTokens();
     }
-}
\ No newline at end of file
+
+    // Drop expired revocations and pick up ones made on other nodes
+    @Scheduled(fixedDelayString = "${auth.token.revocation.rebuild-interval-ms:300000}")
+    public void rebuildTokenRevocationList() {
+        tokenRevocationList.rebuild();
+    }
+
+    // Write queued sliding-expiry extensions as batched updates
+    @Scheduled(fixedDelayString = "${auth.token.refresh.flush-interval-ms:5000}")
+    public void flushTokenExpiryExtensions() {
+        tokenExpiryWriter.flush();
+    }
+
+    // Re-rank suggestions as sales accumulate; checkout does not trigger a rebuild itself
+    @Scheduled(fixedDelayString = "${catalog.suggest.refresh-interval-ms:300000}")
+    public void refreshSuggestions() {
+        suggestionService.requestRebuild();
+    }
+
+    // Apply journaled ledger movements to products.stock; a no-op in database inventory mode
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:500}")
+    public void flushInventoryLedger() {
+        inventoryLedger.flush();
+    }
+
+    // Expired Idempotency-Key rows, one range delete on the expiry index
+    @Scheduled(fixedDelayString = "${orders.idempotency.purge-interval-ms:600000}")
+    public void purgeIdempotencyKeys() {
+        idempotencyService.purgeExpired();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ecommerce.backend.config;
+
+import com.ecommerce.backend.logging.HandlerTimingInterceptor;
+import com.ecommerce.backend.security.CurrentUserArgumentResolver;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+    private final HandlerTimingInterceptor handlerTimingInterceptor;
+    
+    public WebConfig(CurrentUserArgumentResolver currentUserArgumentResolver,
+            HandlerTimingInterceptor handlerTimingInterceptor) {
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+        this.handlerTimingInterceptor = handlerTimingInterceptor;
+    }
+    
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(handlerTimingInterceptor);
+    }
+}
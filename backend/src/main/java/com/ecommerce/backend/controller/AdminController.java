@@ -5,9 +5,11 @@ import com.ecommerce.backend.dto.AdminRegistrationRequest;
 import com.ecommerce.backend.dto.ActivityLogDTO;
 import com.ecommerce.backend.model.ActivityLog;
 import com.ecommerce.backend.model.Admin;
-import com.ecommerce.backend.model.User;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.CurrentUser;
 import com.ecommerce.backend.service.AdminService;
-import com.ecommerce.backend.service.AuthService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,11 +23,10 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/admin")
 public class AdminController {
     
-    @Autowired
-    private AdminService adminService;
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
     
     @Autowired
-    private AuthService authService;
+    private AdminService adminService;
     
     /**
      * Check if any admin exists in the system
@@ -37,9 +38,7 @@ public class AdminController {
             boolean exists = adminService.anyAdminExists();
             return ResponseEntity.ok(exists);
         } catch (Exception e) {
-            // Log the error
-            System.err.println("Error checking if admin exists: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error checking if admin exists", e);
             // Return 500 error with message
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(null);
@@ -77,11 +76,7 @@ public class AdminController {
     }
     
     @GetMapping("/profile")
-    public ResponseEntity<?> getAdminProfile(@RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        User user = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+    public ResponseEntity<?> getAdminProfile(@CurrentUser AuthenticatedUser user) {
         if (!user.getIsAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Not an admin user");
         }
@@ -104,12 +99,7 @@ public class AdminController {
     @PostMapping("/register")
     public ResponseEntity<?> registerAdmin(
             @Valid @RequestBody AdminRegistrationRequest request,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User currentUser = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser currentUser) {
         if (!currentUser.getIsAdmin()) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins can register new admins");
         }
@@ -142,11 +132,7 @@ public class AdminController {
     }
     
     @GetMapping("/activity-logs/my")
-    public ResponseEntity<?> getMyActivityLogs(@RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        User user = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+    public ResponseEntity<?> getMyActivityLogs(@CurrentUser AuthenticatedUser user) {
         return adminService.getAdminByEmail(user.getEmail())
                 .map(admin -> {
                     List<ActivityLogDTO> logs = adminService.getActivityLogsByAdmin(admin).stream()
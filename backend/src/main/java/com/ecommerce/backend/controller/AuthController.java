@@ -3,22 +3,27 @@ package com.ecommerce.backend.controller;
 import com.ecommerce.backend.dto.LoginRequest;
 import com.ecommerce.backend.dto.RegisterRequest;
 import com.ecommerce.backend.dto.TokenResponse;
-import com.ecommerce.backend.model.User;
+import com.ecommerce.backend.dto.UserDTO;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.CurrentUser;
 import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.service.UserService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
 public class AuthController {
 
     private final AuthService authService;
+    private final UserService userService;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, UserService userService) {
         this.authService = authService;
+        this.userService = userService;
     }
 
     @PostMapping("/users/register")
@@ -42,15 +47,12 @@ public class AuthController {
     }
 
     @GetMapping("/users/me")
-    public ResponseEntity<?> getCurrentUser(@RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        Optional<User> userOpt = authService.getCurrentUser(token);
-        
-        if (userOpt.isPresent()) {
-            return ResponseEntity.ok(userOpt.get());
-        } else {
-            return ResponseEntity.status(401).body("Invalid or expired token");
-        }
+    public ResponseEntity<?> getCurrentUser(@CurrentUser AuthenticatedUser user) {
+        // The principal only carries identity fields; the full profile comes from the users row
+        return userService.getUserById(user.getId())
+                .map(UserDTO::of)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     @PostMapping("/auth-tokens/refresh")
@@ -69,10 +71,10 @@ public class AuthController {
     
     @PostMapping("/admin/login")
     public ResponseEntity<?> adminLogin(@Valid @RequestBody LoginRequest loginRequest) {
-        if (authService.isValidAdminCredentials(loginRequest.getEmail(), loginRequest.getPassword())) {
-            TokenResponse tokenResponse = authService.loginUser(loginRequest);
+        try {
+            TokenResponse tokenResponse = authService.loginAdmin(loginRequest);
             return ResponseEntity.ok(tokenResponse);
-        } else {
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(401).body("Invalid admin credentials");
         }
     }
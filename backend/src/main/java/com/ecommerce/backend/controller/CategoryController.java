@@ -2,13 +2,16 @@ package com.ecommerce.backend.controller;
 
 import com.ecommerce.backend.dto.CategoryDTO;
 import com.ecommerce.backend.model.Category;
-import com.ecommerce.backend.model.User;
-import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.repository.CategoryRepository.CategoriesVersion;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.CurrentUser;
 import com.ecommerce.backend.service.CategoryService;
+import com.ecommerce.backend.web.ConditionalRequests;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -21,11 +24,15 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
     
-    @Autowired
-    private AuthService authService;
-    
     @GetMapping("/categories")
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest webRequest) {
+        CategoriesVersion version = categoryService.getCategoriesVersion();
+        if (ConditionalRequests.checkNotModified(webRequest,
+                ConditionalRequests.etag("c", version.getCount(), version.getIdSum(), version.getLastUpdatedAt()),
+                version.getLastUpdatedAt())) {
+            return null;
+        }
+        
         List<CategoryDTO> categories = categoryService.getAllCategories().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
@@ -36,12 +43,7 @@ public class CategoryController {
     @PostMapping("/admin/categories")
     public ResponseEntity<?> createCategory(
             @Valid @RequestBody CategoryDTO categoryDTO,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         Category category = new Category();
         category.setName(categoryDTO.getName());
         category.setDescription(categoryDTO.getDescription());
@@ -55,12 +57,7 @@ public class CategoryController {
     public ResponseEntity<?> updateCategory(
             @PathVariable Long id,
             @Valid @RequestBody CategoryDTO categoryDTO,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         return categoryService.getCategoryById(id)
                 .map(existingCategory -> {
                     existingCategory.setName(categoryDTO.getName());
@@ -75,12 +72,7 @@ public class CategoryController {
     @DeleteMapping("/admin/categories/{id}")
     public ResponseEntity<?> deleteCategory(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         if (!categoryService.getCategoryById(id).isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -1,27 +1,34 @@
 package com.ecommerce.backend.controller;
 
+import com.ecommerce.backend.dto.CursorPage;
 import com.ecommerce.backend.dto.OrderDTO;
+import com.ecommerce.backend.dto.OrderIntakeStatusDTO;
 import com.ecommerce.backend.dto.OrderItemDTO;
 import com.ecommerce.backend.dto.OrderRequest;
 import com.ecommerce.backend.dto.StatusUpdateRequest;
+import com.ecommerce.backend.idempotency.IdempotencyService;
+import com.ecommerce.backend.intake.OrderIntakePipeline;
 import com.ecommerce.backend.model.Order;
 import com.ecommerce.backend.model.OrderItem;
-import com.ecommerce.backend.model.Product;
-import com.ecommerce.backend.model.User;
-import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.pagination.KeysetCursor;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.CurrentUser;
 import com.ecommerce.backend.service.OrderService;
-import com.ecommerce.backend.service.ProductService;
+import com.ecommerce.backend.web.ConditionalRequests;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -32,25 +39,33 @@ public class OrderController {
     private OrderService orderService;
     
     @Autowired
-    private ProductService productService;
+    private OrderIntakePipeline orderIntakePipeline;
     
     @Autowired
-    private AuthService authService;
-
+    private IdempotencyService idempotencyService;
+    
     // 🚩 New endpoint: Get my orders
     @GetMapping("/orders/my")
-    public ResponseEntity<?> getMyOrders(@RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        User user = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-
+    public ResponseEntity<?> getMyOrders(@CurrentUser AuthenticatedUser user) {
         List<Order> orders = orderService.getOrdersByEmail(user.getEmail());
         List<OrderDTO> orderDTOs = orders.stream().map(this::convertToDTO).collect(Collectors.toList());
         return ResponseEntity.ok(orderDTOs);
     }
     
+    /**
+     * Retries that repeat the Idempotency-Key header get the first response back
+     * instead of placing the order again.
+     */
     @PostMapping("/orders")
-    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest orderRequest,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return placeOrder(orderRequest);
+        }
+        return idempotencyService.execute(idempotencyKey, orderRequest, () -> placeOrder(orderRequest));
+    }
+    
+    private ResponseEntity<?> placeOrder(OrderRequest orderRequest) {
         Order order = new Order();
         order.setCustomerName(orderRequest.getCustomerName());
         order.setCustomerPhone(orderRequest.getCustomerPhone());
@@ -58,28 +73,23 @@ public class OrderController {
         order.setCustomerAddress(orderRequest.getCustomerAddress());
         order.setStatus(Order.OrderStatus.Pending);
 
-        List<OrderItem> orderItems = new ArrayList<>();
+        // Early rejection only; the authoritative check is the conditional decrement in OrderService
+        List<OrderItem> orderItems = orderService.prepareItems(orderRequest.getItems());
         BigDecimal totalAmount = BigDecimal.ZERO;
-
-        for (OrderItemDTO itemDTO : orderRequest.getItems()) {
-            Product product = productService.getProductById(itemDTO.getProductId())
-                    .orElseThrow(() -> new IllegalArgumentException("Product not found: " + itemDTO.getProductId()));
-
-            if (product.getStock() < itemDTO.getQuantity()) {
-                return ResponseEntity.badRequest().body("Not enough stock for product: " + product.getName());
-            }
-
-            OrderItem item = new OrderItem();
-            item.setProduct(product);
-            item.setQuantity(itemDTO.getQuantity());
-            item.setPrice(product.getPrice());
-
-            orderItems.add(item);
-            totalAmount = totalAmount.add(product.getPrice().multiply(new BigDecimal(itemDTO.getQuantity())));
+        for (OrderItem item : orderItems) {
+            totalAmount = totalAmount.add(item.getPrice().multiply(new BigDecimal(item.getQuantity())));
         }
 
         order.setTotalAmount(totalAmount);
 
+        // Async intake acknowledges with the tracking id; the order is committed by a background batch
+        if (orderIntakePipeline.isEnabled()) {
+            OrderIntakeStatusDTO accepted = orderIntakePipeline.submit(order, orderItems);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/track/" + accepted.getTrackingId()))
+                    .body(accepted);
+        }
+
         Order savedOrder = orderService.createOrder(order, orderItems);
 
         OrderDTO responseDTO = convertToDTO(savedOrder);
@@ -87,23 +97,45 @@ public class OrderController {
     }
 
     @GetMapping("/orders/track/{trackingId}")
-    public ResponseEntity<?> trackOrder(@PathVariable String trackingId) {
+    public ResponseEntity<?> trackOrder(@PathVariable String trackingId, WebRequest webRequest) {
+        Optional<LocalDateTime> version = orderService.getOrderVersionByTrackingId(trackingId);
+        if (version.isEmpty()) {
+            // Not committed yet: still queued by the async intake, or failed there
+            return orderIntakePipeline.getStatus(trackingId)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+        }
+        if (ConditionalRequests.checkNotModified(webRequest,
+                ConditionalRequests.etag("o", trackingId, version.get()), version.get())) {
+            return null;
+        }
+        
         return orderService.getOrderByTrackingId(trackingId)
                 .map(this::convertToDTO)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    /**
+     * Offset pages by default. Passing {@code cursor} (empty for the first slice)
+     * switches to keyset paging, newest first, without a count query.
+     */
     @GetMapping("/admin/orders")
     public ResponseEntity<?> getOrders(
             @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size,
-            @RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-
+            @RequestParam(defaultValue = "10") int size) {
+        if (cursor != null) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("Page size must be positive");
+            }
+            List<Order> rows = orderService.getOrdersAfter(status, KeysetCursor.decode(cursor), size + 1);
+            return ResponseEntity.ok(CursorPage.of(rows, size,
+                    order -> new KeysetCursor(order.getOrderDate(), order.getId()),
+                    slice -> slice.stream().map(this::convertToDTO).collect(Collectors.toList())));
+        }
+        
         Page<Order> orders;
         if (status != null) {
             orders = orderService.getOrdersByStatus(status, PageRequest.of(page, size));
@@ -116,12 +148,7 @@ public class OrderController {
 
     @GetMapping("/admin/orders/{id}")
     public ResponseEntity<?> getOrderDetails(
-            @PathVariable Long id,
-            @RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-
+            @PathVariable Long id) {
         return orderService.getOrderById(id)
                 .map(this::convertToDTO)
                 .map(ResponseEntity::ok)
@@ -132,11 +159,7 @@ public class OrderController {
     public ResponseEntity<?> updateOrderStatus(
             @PathVariable Long id,
             @Valid @RequestBody StatusUpdateRequest request,
-            @RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-
+            @CurrentUser AuthenticatedUser admin) {
         try {
             Order updatedOrder = orderService.updateOrderStatus(id, request.getStatus(), admin.getEmail());
             return ResponseEntity.ok(convertToDTO(updatedOrder));
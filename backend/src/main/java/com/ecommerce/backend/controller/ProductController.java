@@ -1,25 +1,36 @@
 package com.ecommerce.backend.controller;
 
+import com.ecommerce.backend.dto.ProductBatchRequest;
+import com.ecommerce.backend.dto.ProductBatchResponse;
 import com.ecommerce.backend.dto.ProductDTO;
+import com.ecommerce.backend.dto.ProductFilterResponse;
 import com.ecommerce.backend.dto.ProductImageDTO;
 import com.ecommerce.backend.dto.StockUpdateRequest;
+import com.ecommerce.backend.dto.SuggestionDTO;
 import com.ecommerce.backend.model.Category;
 import com.ecommerce.backend.model.Product;
 import com.ecommerce.backend.model.ProductImage;
-import com.ecommerce.backend.model.User;
-import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.repository.ProductRepository.ProductVersion;
+import com.ecommerce.backend.search.FacetEngine.FacetQuery;
+import com.ecommerce.backend.search.SuggestionService;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.CurrentUser;
 import com.ecommerce.backend.service.CategoryService;
+import com.ecommerce.backend.service.ProductCatalogService;
 import com.ecommerce.backend.service.ProductService;
+import com.ecommerce.backend.web.ConditionalRequests;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api")
@@ -32,40 +43,102 @@ public class ProductController {
     private CategoryService categoryService;
     
     @Autowired
-    private AuthService authService;
+    private ProductCatalogService productCatalogService;
     
+    @Autowired
+    private SuggestionService suggestionService;
+    
+    /**
+     * Offset pages by default. Passing {@code cursor} (empty for the first slice)
+     * switches to keyset paging: no count query and constant cost at any depth.
+     */
     @GetMapping("/products")
-public ResponseEntity<?> getAllProducts(
-        @RequestParam(required = false) Long categoryId,
-        @RequestParam(required = false) String search,
-        @RequestParam(defaultValue = "0") int page,
-        @RequestParam(defaultValue = "10") int size) {
-
-    Page<Product> products;
-
-    if (search != null && !search.isEmpty()) {
-        products = productService.searchProducts(search, PageRequest.of(page, size));
-        return ResponseEntity.ok(products.map(this::convertToDTO));
+    public ResponseEntity<?> getAllProducts(
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        if (search != null && !search.isEmpty()) {
+            if (cursor != null) {
+                throw new IllegalArgumentException("Cursor paging is not supported for search");
+            }
+            return ResponseEntity.ok(productCatalogService.searchProducts(search, PageRequest.of(page, size)));
+        }
+        
+        if (categoryId != null) {
+            return categoryService.getCategoryById(categoryId)
+                    .map(category -> ResponseEntity.ok(cursor != null
+                            ? productCatalogService.getProductsAfter(category, cursor, size)
+                            : productCatalogService.getProductsByCategory(category, PageRequest.of(page, size))))
+                    .orElse(ResponseEntity.notFound().build());
+        }
+        
+        if (cursor != null) {
+            return ResponseEntity.ok(productCatalogService.getProductsAfter(null, cursor, size));
+        }
+        return ResponseEntity.ok(productCatalogService.getProducts(PageRequest.of(page, size)));
     }
-
-    if (categoryId != null) {
-        return categoryService.getCategoryById(categoryId)
-                .map(category -> {
-                    Page<Product> categoryProducts = productService.getProductsByCategory(category, PageRequest.of(page, size));
-                    return ResponseEntity.ok(categoryProducts.map(this::convertToDTO));
-                })
-                .orElse(ResponseEntity.notFound().build());
+    
+    @GetMapping("/products/filter")
+    public ResponseEntity<ProductFilterResponse> filterProducts(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        FacetQuery query = new FacetQuery(minPrice, maxPrice, categoryId, inStock, q);
+        return ResponseEntity.ok(productCatalogService.filterProducts(query, PageRequest.of(page, size)));
+    }
+    
+    @GetMapping("/products/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productCatalogService.getProductsByIds(ids));
+    }
+    
+    // Same lookup for id lists too long for a query string
+    @PostMapping("/products/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@Valid @RequestBody ProductBatchRequest request) {
+        return ResponseEntity.ok(productCatalogService.getProductsByIds(request.getIds()));
+    }
+    
+    @GetMapping("/products/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionService.suggest(query, Math.max(limit, 0)));
     }
-
-    products = productService.getAllProducts(PageRequest.of(page, size));
-    return ResponseEntity.ok(products.map(this::convertToDTO));
-}
-
     
     @GetMapping("/products/{id}")
-    public ResponseEntity<?> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(this::convertToDTO)
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        Optional<ProductVersion> version = productCatalogService.getProductVersion(id);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        // The category and the ledger's unflushed stock are part of the DTO, so they change the tag too
+        LocalDateTime updatedAt = version.get().getUpdatedAt();
+        LocalDateTime categoryUpdatedAt = version.get().getCategoryUpdatedAt();
+        LocalDateTime stockMovedAt = productService.getLastStockMovementAt(id);
+        if (ConditionalRequests.checkNotModified(webRequest,
+                ConditionalRequests.etag("p", id, updatedAt, categoryUpdatedAt, stockMovedAt),
+                ConditionalRequests.latest(updatedAt, categoryUpdatedAt, stockMovedAt))) {
+            return null;
+        }
+        
+        return productCatalogService.getProduct(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping("/products/{id}/related")
+    public ResponseEntity<?> getRelatedProducts(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "4") int limit) {
+        return productCatalogService.getRelatedProducts(id, limit)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -73,12 +146,7 @@ public ResponseEntity<?> getAllProducts(
     @PostMapping("/admin/products")
     public ResponseEntity<?> createProduct(
             @Valid @RequestBody ProductDTO productDTO,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         Category category = categoryService.getCategoryById(productDTO.getCategoryId())
                 .orElseThrow(() -> new IllegalArgumentException("Category not found"));
         
@@ -99,12 +167,7 @@ public ResponseEntity<?> getAllProducts(
     public ResponseEntity<?> updateProduct(
             @PathVariable Long id,
             @Valid @RequestBody ProductDTO productDTO,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         return productService.getProductById(id)
                 .map(existingProduct -> {
                     Category category = categoryService.getCategoryById(productDTO.getCategoryId())
@@ -117,7 +180,8 @@ public ResponseEntity<?> getAllProducts(
                     existingProduct.setImageUrl(productDTO.getImageUrl());
                     existingProduct.setCategory(category);
                     
-                    Product updatedProduct = productService.updateProduct(existingProduct, admin.getEmail());
+                    Product updatedProduct = productService.updateProduct(existingProduct,
+                            productDTO.getExpectedStock(), admin.getEmail());
                     return ResponseEntity.ok(convertToDTO(updatedProduct));
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -127,14 +191,10 @@ public ResponseEntity<?> getAllProducts(
     public ResponseEntity<?> updateProductStock(
             @PathVariable Long id,
             @Valid @RequestBody StockUpdateRequest request,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         try {
-            Product updatedProduct = productService.updateProductStock(id, request.getStock(), admin.getEmail());
+            Product updatedProduct = productService.updateProductStock(id, request.getExpectedStock(), request.getStock(),
+                    admin.getEmail());
             return ResponseEntity.ok(convertToDTO(updatedProduct));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -144,12 +204,7 @@ public ResponseEntity<?> getAllProducts(
     @DeleteMapping("/admin/products/{id}")
     public ResponseEntity<?> deleteProduct(
             @PathVariable Long id,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         if (!productService.getProductById(id).isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -162,12 +217,7 @@ public ResponseEntity<?> getAllProducts(
     public ResponseEntity<?> addProductImage(
             @PathVariable Long productId,
             @Valid @RequestBody ProductImageDTO imageDTO,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         try {
             ProductImage savedImage = productService.addProductImage(
                     productId, imageDTO.getImageUrl(), admin.getEmail());
@@ -187,12 +237,7 @@ public ResponseEntity<?> getAllProducts(
     @DeleteMapping("/admin/products/images/{imageId}")
     public ResponseEntity<?> deleteProductImage(
             @PathVariable Long imageId,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         productService.deleteProductImage(imageId, admin.getEmail());
         return ResponseEntity.ok().build();
     }
@@ -200,12 +245,7 @@ public ResponseEntity<?> getAllProducts(
     @PatchMapping("/admin/products/images/{imageId}/main")
     public ResponseEntity<?> setMainProductImage(
             @PathVariable Long imageId,
-            @RequestHeader("Authorization") String tokenHeader) {
-        
-        String token = tokenHeader.replace("Bearer ", "");
-        User admin = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
+            @CurrentUser AuthenticatedUser admin) {
         try {
             productService.setMainProductImage(imageId, admin.getEmail());
             return ResponseEntity.ok().build();
@@ -215,35 +255,6 @@ public ResponseEntity<?> getAllProducts(
     }
     
     private ProductDTO convertToDTO(Product product) {
-        ProductDTO dto = new ProductDTO();
-        dto.setId(product.getId());
-        dto.setName(product.getName());
-        dto.setDescription(product.getDescription());
-        dto.setPrice(product.getPrice());
-        dto.setStock(product.getStock());
-        dto.setImageUrl(product.getImageUrl());
-        
-        if (product.getCategory() != null) {
-            dto.setCategoryId(product.getCategory().getId());
-            dto.setCategoryName(product.getCategory().getName());
-        }
-        
-        dto.setCreatedAt(product.getCreatedAt());
-        dto.setUpdatedAt(product.getUpdatedAt());
-        
-        // Include product images
-        List<ProductImageDTO> imageDTOs = product.getImages().stream()
-                .map(image -> {
-                    ProductImageDTO imageDTO = new ProductImageDTO();
-                    imageDTO.setId(image.getId());
-                    imageDTO.setProductId(product.getId());
-                    imageDTO.setImageUrl(image.getImageUrl());
-                    imageDTO.setIsMain(image.getIsMain());
-                    return imageDTO;
-                })
-                .collect(Collectors.toList());
-        dto.setImages(imageDTOs);
-        
-        return dto;
+        return productCatalogService.toDTO(product);
     }
 }
\ No newline at end of file
@@ -1,8 +1,8 @@
 package com.ecommerce.backend.controller;
 
 import com.ecommerce.backend.dto.UserDTO;
-import com.ecommerce.backend.model.User;
-import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.CurrentUser;
 import com.ecommerce.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -19,24 +19,18 @@ public class UserController {
     @Autowired
     private UserService userService;
     
-    @Autowired
-    private AuthService authService;
-    
     @GetMapping("/users/profile")
-    public ResponseEntity<?> getCurrentUser(@RequestHeader("Authorization") String tokenHeader) {
-        String token = tokenHeader.replace("Bearer ", "");
-        User user = authService.getUserFromToken(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or expired token"));
-        
-        UserDTO userDTO = convertToDTO(user);
-        
-        return ResponseEntity.ok(userDTO);
+    public ResponseEntity<?> getCurrentUser(@CurrentUser AuthenticatedUser user) {
+        return userService.getUserById(user.getId())
+                .map(UserDTO::of)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
     
     @GetMapping("/admin/users")
     public ResponseEntity<List<UserDTO>> getAllUsers() {
         List<UserDTO> users = userService.getAllUsers().stream()
-                .map(this::convertToDTO)
+                .map(UserDTO::of)
                 .collect(Collectors.toList());
         
         return ResponseEntity.ok(users);
@@ -45,7 +39,7 @@ public class UserController {
     @GetMapping("/admin/users/{id}")
     public ResponseEntity<?> getUserById(@PathVariable Long id) {
         return userService.getUserById(id)
-                .map(this::convertToDTO)
+                .map(UserDTO::of)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
@@ -59,14 +53,4 @@ public class UserController {
         userService.deleteUser(id);
         return ResponseEntity.ok().build();
     }
-    
-    private UserDTO convertToDTO(User user) {
-        UserDTO dto = new UserDTO();
-        dto.setId(user.getId());
-        dto.setName(user.getName());
-        dto.setEmail(user.getEmail());
-        dto.setIsAdmin(user.getIsAdmin());
-        dto.setCreatedAt(user.getCreatedAt());
-        return dto;
-    }
 }
\ No newline at end of file
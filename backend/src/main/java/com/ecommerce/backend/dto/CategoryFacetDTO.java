@@ -0,0 +1,16 @@
+package com.ecommerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryFacetDTO {
+    private Long categoryId;
+    
+    private String categoryName;
+    
+    private long count;
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.backend.dto;
+
+import com.ecommerce.backend.pagination.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing. There is no total count;
+ * nextCursor is null on the last slice.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    
+    private int size;
+    
+    private boolean hasNext;
+    
+    private String nextCursor;
+    
+    /**
+     * Builds a slice from rows fetched with a limit of size + 1; the extra row only signals that more exist.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, KeysetCursor> cursorOf,
+            Function<List<E>, List<T>> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> slice = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(slice.get(slice.size() - 1)).encode() : null;
+        return new CursorPage<>(mapper.apply(slice), size, hasNext, nextCursor);
+    }
+}
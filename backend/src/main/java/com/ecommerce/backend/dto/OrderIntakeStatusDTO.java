@@ -0,0 +1,24 @@
+package com.ecommerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an order accepted by the asynchronous intake that has not been
+ * committed yet: "Queued" while it waits, "Failed" if it could not be placed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeStatusDTO {
+    private String trackingId;
+    
+    private String status;
+    
+    private String message;
+    
+    private LocalDateTime acceptedAt;
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketDTO {
+    // Inclusive lower bound
+    private BigDecimal min;
+    
+    // Exclusive upper bound; null for the open-ended last bucket
+    private BigDecimal max;
+    
+    private long count;
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.backend.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ProductBatchRequest {
+    @NotEmpty(message = "At least one product id is required")
+    private List<Long> ids = new ArrayList<>();
+}
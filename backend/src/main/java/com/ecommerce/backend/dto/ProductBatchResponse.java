@@ -0,0 +1,18 @@
+package com.ecommerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBatchResponse {
+    // In request order, duplicates removed
+    private List<ProductDTO> products = new ArrayList<>();
+    
+    private List<Long> missingIds = new ArrayList<>();
+}
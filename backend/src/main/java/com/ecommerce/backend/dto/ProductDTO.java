@@ -1,5 +1,6 @@
 package com.ecommerce.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -29,6 +30,11 @@ public class ProductDTO {
     @Min(value = 0, message = "Stock cannot be negative")
     private Integer stock;
     
+    // Stock the admin form was loaded with; updates apply only if it is still current
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    @Min(value = 0, message = "Stock cannot be negative")
+    private Integer expectedStock;
+    
     private String imageUrl;
     
     @NotNull(message = "Category is required")
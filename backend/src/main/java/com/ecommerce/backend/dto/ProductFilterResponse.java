@@ -0,0 +1,26 @@
+package com.ecommerce.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtered product page plus facet counts. Each facet is counted with every
+ * filter applied except its own, so the client can show alternatives.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterResponse {
+    private Page<ProductDTO> products;
+    
+    private List<CategoryFacetDTO> categories = new ArrayList<>();
+    
+    private List<PriceBucketDTO> priceBuckets = new ArrayList<>();
+    
+    private long inStockCount;
+}
@@ -10,4 +10,8 @@ public class StockUpdateRequest {
     @NotNull(message = "Stock is required")
     @Min(value = 0, message = "Stock cannot be negative")
     private Integer stock;
+    
+    // Optional: reject the update with 409 if stock has moved away from this value
+    @Min(value = 0, message = "Stock cannot be negative")
+    private Integer expectedStock;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.ecommerce.backend.dto;
 
+import com.ecommerce.backend.model.User;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -11,4 +12,14 @@ public class UserDTO {
     private String email;
     private Boolean isAdmin;
     private LocalDateTime createdAt;
+    
+    public static UserDTO of(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setEmail(user.getEmail());
+        dto.setIsAdmin(user.getIsAdmin());
+        dto.setCreatedAt(user.getCreatedAt());
+        return dto;
+    }
 }
\ No newline at end of file
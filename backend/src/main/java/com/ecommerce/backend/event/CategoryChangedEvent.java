@@ -0,0 +1,7 @@
+package com.ecommerce.backend.event;
+
+/**
+ * Published whenever a category is created, renamed or deleted.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
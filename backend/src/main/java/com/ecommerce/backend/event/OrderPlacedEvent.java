@@ -0,0 +1,9 @@
+package com.ecommerce.backend.event;
+
+import java.util.List;
+
+/**
+ * Published when an order is created, with the distinct products it contains.
+ */
+public record OrderPlacedEvent(Long orderId, List<Long> productIds) {
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.backend.event;
+
+/**
+ * Published whenever a product, its images or its stock change. Read-side
+ * caches and indexes listen for it after the surrounding transaction commits.
+ * stockOnly marks stock decrements from checkout, which listing caches may
+ * serve stale within their ttl.
+ */
+public record ProductChangedEvent(Long productId, boolean stockOnly) {
+
+    public ProductChangedEvent(Long productId) {
+        this(productId, false);
+    }
+}
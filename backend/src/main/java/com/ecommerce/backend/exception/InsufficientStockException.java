@@ -0,0 +1,12 @@
+package com.ecommerce.backend.exception;
+
+/**
+ * Thrown when an order line cannot be covered by the remaining stock. Rolls
+ * back the whole order; mapped to 409 by {@link ApiExceptionHandler}.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.backend.exception;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be
+ * retried later; mapped to 503 by {@link ApiExceptionHandler}.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.backend.exception;
+
+/**
+ * Thrown when an admin stock update was based on a stock level that has
+ * since changed, e.g. sales landed while the form was open. Mapped to 409 by
+ * {@link ApiExceptionHandler}.
+ */
+public class StockConflictException extends RuntimeException {
+
+    public StockConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,300 @@
+package com.ecommerce.backend.idempotency;
+
+import com.ecommerce.backend.cache.BoundedCache;
+import com.ecommerce.backend.exception.ServiceBusyException;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.model.IdempotencyRecord;
+import com.ecommerce.backend.repository.IdempotencyRecordRepository;
+import com.ecommerce.backend.security.TokenDigests;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per Idempotency-Key and replays its response
+ * to retries.
+ * <p>
+ * Completed responses are kept in memory and in idempotency_keys. Duplicates
+ * arriving on this instance while the first request runs wait on it rather
+ * than racing it. Across instances, the first request claims the key with a
+ * row insert; a duplicate that finds an unfinished claim gets 503 and retries.
+ * <p>
+ * The action runs in the same transaction that writes its response onto the
+ * locked claim row, so an order and its stored response commit or roll back
+ * together. A claim without a response therefore never has a committed
+ * order behind it, and taking over an abandoned one after its lease cannot
+ * place the order twice. Failed requests release their claim and are not
+ * remembered, so the client may retry with the same key.
+ */
+@Component
+public class IdempotencyService implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration lease;
+    private final long waitTimeoutMillis;
+
+    private final BoundedCache<String, StoredResponse> responses;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder tableReplays = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+            TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+            @Value("${orders.idempotency.ttl-hours:24}") long ttlHours,
+            @Value("${orders.idempotency.lease-seconds:60}") long leaseSeconds,
+            @Value("${orders.idempotency.cache.max-size:10000}") int cacheMaxSize,
+            @Value("${orders.idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.responses = new BoundedCache<>(cacheMaxSize, ttl);
+    }
+
+    /**
+     * Runs action once for the key, or replays the response it produced.
+     *
+     * @param request the request body; its digest must match on every retry
+     * @throws IllegalArgumentException if the key was used with a different request
+     * @throws ServiceBusyException if another instance is still processing the key
+     */
+    public ResponseEntity<?> execute(String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        requests.increment();
+        String fingerprint = fingerprint(request);
+
+        StoredResponse cached = responses.getIfPresent(key);
+        if (cached != null) {
+            replays.increment();
+            return replay(cached, fingerprint);
+        }
+
+        CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return replay(await(running), fingerprint);
+        }
+
+        try {
+            IdempotencyRecord stored = claim(key, fingerprint);
+            if (stored.getResponseStatus() != null) {
+                StoredResponse response = StoredResponse.of(stored);
+                responses.put(key, response);
+                mine.complete(response);
+                tableReplays.increment();
+                return replay(response, fingerprint);
+            }
+
+            Completed completed;
+            try {
+                completed = transactionTemplate.execute(status -> runClaimed(key, stored.getId(), fingerprint, action));
+            } catch (RuntimeException e) {
+                release(stored.getId(), e);
+                throw e;
+            }
+
+            responses.put(key, completed.response());
+            mine.complete(completed.response());
+            return completed.result();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Drops expired keys; called on a schedule.
+     */
+    public int purgeExpired() {
+        Integer purged = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+        return purged == null ? 0 : purged;
+    }
+
+    // Returns the completed record for the key, or the new claim this request now holds
+    private IdempotencyRecord claim(String key, String fingerprint) {
+        try {
+            return transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                IdempotencyRecord existing = idempotencyRecordRepository.findByIdempotencyKey(key).orElse(null);
+                if (existing != null && existing.getExpiresAt().isBefore(now)) {
+                    // Expired, or a claim abandoned by a crashed instance. Re-read under the lock:
+                    // a request still running under the claim holds it and may have answered by now.
+                    existing = idempotencyRecordRepository.findByKeyForUpdate(key).orElse(null);
+                    if (existing != null && existing.getExpiresAt().isBefore(now)) {
+                        idempotencyRecordRepository.delete(existing);
+                        idempotencyRecordRepository.flush();
+                        existing = null;
+                    }
+                }
+                if (existing != null) {
+                    if (existing.getResponseStatus() == null) {
+                        if (!existing.getFingerprint().equals(fingerprint)) {
+                            throw mismatch();
+                        }
+                        throw inProgress();
+                    }
+                    return existing;
+                }
+                return idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(null, key, fingerprint,
+                        null, null, null, now, now.plus(lease)));
+            });
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            throw inProgress();
+        }
+    }
+
+    // Runs inside one transaction: the action's writes and the stored response commit together
+    private Completed runClaimed(String key, Long claimId, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        IdempotencyRecord claim = idempotencyRecordRepository.findByKeyForUpdate(key)
+                .filter(record -> record.getId().equals(claimId) && record.getResponseStatus() == null)
+                // The lease ran out and another request took the key over
+                .orElseThrow(this::inProgress);
+
+        ResponseEntity<?> result = action.get();
+        StoredResponse response = new StoredResponse(fingerprint, result.getStatusCode().value(),
+                toJson(result.getBody()), result.getHeaders().getFirst(HttpHeaders.LOCATION));
+        claim.setResponseStatus(response.status());
+        claim.setResponseBody(response.body());
+        claim.setResponseLocation(response.location());
+        claim.setExpiresAt(LocalDateTime.now().plus(ttl));
+        idempotencyRecordRepository.flush();
+        return new Completed(result, response);
+    }
+
+    // Nothing under the claim committed, so the client may retry with the same key
+    private void release(Long claimId, RuntimeException cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.deleteClaim(claimId));
+        } catch (RuntimeException e) {
+            // The claim expires with its lease and is taken over then
+            cause.addSuppressed(e);
+            log.error("Could not release claim for {} after a failed request", HEADER, e);
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw inProgress();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse response, String fingerprint) {
+        if (!response.fingerprint().equals(fingerprint)) {
+            throw mismatch();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.status())
+                .header(REPLAYED_HEADER, "true")
+                .contentType(MediaType.APPLICATION_JSON);
+        if (response.location() != null) {
+            builder.location(URI.create(response.location()));
+        }
+        return builder.body(response.body());
+    }
+
+    private IllegalArgumentException mismatch() {
+        mismatches.increment();
+        return new IllegalArgumentException(HEADER + " was already used for a different request");
+    }
+
+    private ServiceBusyException inProgress() {
+        conflicts.increment();
+        return new ServiceBusyException("A request with this " + HEADER + " is still being processed, please retry");
+    }
+
+    private String fingerprint(Object request) {
+        return TokenDigests.sha256Hex(toJson(request));
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent request", e);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "idempotency";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("requests", requests.sum());
+        metrics.put("replays", replays.sum());
+        metrics.put("tableReplays", tableReplays.sum());
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("conflicts", conflicts.sum());
+        metrics.put("mismatches", mismatches.sum());
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("cached", responses.size());
+        return metrics;
+    }
+
+    private record Completed(ResponseEntity<?> result, StoredResponse response) {
+    }
+
+    private record StoredResponse(String fingerprint, int status, String body, String location) {
+
+        static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getFingerprint(), record.getResponseStatus(),
+                    record.getResponseBody(), record.getResponseLocation());
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.ecommerce.backend.intake;
+
+import com.ecommerce.backend.cache.BoundedCache;
+import com.ecommerce.backend.dto.OrderIntakeStatusDTO;
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.exception.ServiceBusyException;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.model.Order;
+import com.ecommerce.backend.model.OrderItem;
+import com.ecommerce.backend.service.OrderService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous order intake ({@code orders.intake.mode=async}).
+ * <p>
+ * A validated order gets its tracking id on the request thread and waits in
+ * a bounded queue; a full queue is answered with 503 rather than growing.
+ * Workers take up to batch-size orders at a time and place them all in one
+ * transaction (group commit). An order that runs short of stock gives its
+ * partial stock back and fails alone; any other error rolls back the group,
+ * which is then retried one order per transaction. Until an order is
+ * committed its status ("Queued" or "Failed") is served from memory, so
+ * a restart loses orders that were still queued.
+ */
+@Component
+public class OrderIntakePipeline implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIntakePipeline.class);
+    private static final String QUEUED = "Queued";
+    private static final String FAILED = "Failed";
+
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int workerCount;
+
+    private final BlockingQueue<PendingOrder> queue;
+    // Accepted but not yet committed, including orders in a batch being written
+    private final Map<String, PendingOrder> inFlight = new ConcurrentHashMap<>();
+    private final BoundedCache<String, OrderIntakeStatusDTO> failures;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedOrders = new LongAdder();
+    private final LongAdder groupFallbacks = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxBatchSize = new LongAccumulator(Math::max, 0);
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+
+    public OrderIntakePipeline(OrderService orderService, TransactionTemplate transactionTemplate,
+            @Value("${orders.intake.mode:sync}") String mode,
+            @Value("${orders.intake.queue-capacity:10000}") int queueCapacity,
+            @Value("${orders.intake.batch-size:50}") int batchSize,
+            @Value("${orders.intake.workers:2}") int workerCount,
+            @Value("${orders.intake.failed-retention-minutes:60}") long failedRetentionMinutes) {
+        this.orderService = orderService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = "async".equalsIgnoreCase(mode);
+        this.batchSize = batchSize;
+        this.workerCount = workerCount;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.failures = new BoundedCache<>(queueCapacity, Duration.ofMinutes(failedRetentionMinutes));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drain);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a validated order and returns the tracking id it will be stored under.
+     * Inside a transaction (an idempotent request storing its response) the
+     * order is only queued once that transaction commits.
+     *
+     * @throws ServiceBusyException if the queue is full
+     */
+    public OrderIntakeStatusDTO submit(Order order, List<OrderItem> orderItems) {
+        String trackingId = orderService.generateTrackingId();
+        order.setTrackingId(trackingId);
+        PendingOrder pending = new PendingOrder(order, orderItems, LocalDateTime.now(), System.nanoTime());
+
+        inFlight.put(trackingId, pending);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (!running || queue.remainingCapacity() == 0) {
+                throw reject(pending);
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        inFlight.remove(trackingId);
+                    } else if (!running || !queue.offer(pending)) {
+                        // Already acknowledged, so report it through the tracking status
+                        complete(pending, "Order could not be queued, please place it again");
+                    }
+                }
+            });
+        } else if (!running || !queue.offer(pending)) {
+            throw reject(pending);
+        }
+        accepted.increment();
+        return new OrderIntakeStatusDTO(trackingId, QUEUED, null, pending.acceptedAt());
+    }
+
+    private ServiceBusyException reject(PendingOrder pending) {
+        inFlight.remove(pending.trackingId());
+        rejected.increment();
+        return new ServiceBusyException("Too many orders are waiting to be placed, please retry");
+    }
+
+    /**
+     * Status of an order that is not in the database yet: queued or being
+     * written, or failed within the retention window.
+     */
+    public Optional<OrderIntakeStatusDTO> getStatus(String trackingId) {
+        PendingOrder pending = inFlight.get(trackingId);
+        if (pending != null) {
+            return Optional.of(new OrderIntakeStatusDTO(trackingId, QUEUED, null, pending.acceptedAt()));
+        }
+        return Optional.ofNullable(failures.getIfPresent(trackingId));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (workers == null) {
+            return;
+        }
+        // Stop accepting, let the workers empty the queue, then wait for them
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Order intake stopped with {} orders still queued", queue.size());
+        }
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order intake worker failed on a batch of {} orders", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        Map<String, String> shortages;
+        try {
+            shortages = transactionTemplate.execute(status -> {
+                Map<String, String> shortOrders = new HashMap<>();
+                for (PendingOrder pending : batch) {
+                    try {
+                        orderService.placeOrder(pending.order(), pending.orderItems());
+                    } catch (InsufficientStockException e) {
+                        shortOrders.put(pending.trackingId(), e.getMessage());
+                    }
+                }
+                return shortOrders;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} orders failed, placing them one by one", batch.size(), e);
+            groupFallbacks.increment();
+            batch.forEach(this::commitAlone);
+            recordBatch(batch.size());
+            return;
+        }
+
+        batch.forEach(pending -> complete(pending, shortages.get(pending.trackingId())));
+        recordBatch(batch.size());
+    }
+
+    private void commitAlone(PendingOrder pending) {
+        // The rolled-back group already assigned ids to these instances
+        pending.order().setId(null);
+        pending.orderItems().forEach(item -> item.setId(null));
+
+        String failure = null;
+        try {
+            orderService.createOrder(pending.order(), pending.orderItems());
+        } catch (InsufficientStockException e) {
+            failure = e.getMessage();
+        } catch (RuntimeException e) {
+            log.error("Queued order {} could not be placed", pending.trackingId(), e);
+            failure = "Order could not be placed";
+        }
+        complete(pending, failure);
+    }
+
+    private void complete(PendingOrder pending, String failure) {
+        if (failure != null) {
+            failures.put(pending.trackingId(),
+                    new OrderIntakeStatusDTO(pending.trackingId(), FAILED, failure, pending.acceptedAt()));
+            failed.increment();
+        } else {
+            committed.increment();
+        }
+        inFlight.remove(pending.trackingId());
+
+        long latency = System.nanoTime() - pending.enqueuedNanos();
+        latencyNanos.add(latency);
+        maxLatencyNanos.accumulate(latency);
+    }
+
+    private void recordBatch(int size) {
+        batches.increment();
+        batchedOrders.add(size);
+        maxBatchSize.accumulate(size);
+        lastBatchSize.set(size);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "orderIntake";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long batchCount = batches.sum();
+        long completed = committed.sum() + failed.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("queueDepth", queue.size());
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("accepted", accepted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("committed", committed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("batches", batchCount);
+        metrics.put("averageBatchSize", batchCount == 0 ? 0.0 : (double) batchedOrders.sum() / batchCount);
+        metrics.put("maxBatchSize", maxBatchSize.get());
+        metrics.put("lastBatchSize", lastBatchSize.get());
+        metrics.put("groupFallbacks", groupFallbacks.sum());
+        metrics.put("averageLatencyMillis", completed == 0 ? 0.0 : latencyNanos.sum() / 1_000_000.0 / completed);
+        metrics.put("maxLatencyMillis", maxLatencyNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    private record PendingOrder(Order order, List<OrderItem> orderItems, LocalDateTime acceptedAt, long enqueuedNanos) {
+
+        String trackingId() {
+            return order.getTrackingId();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.ecommerce.backend.inventory;
+
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.model.InventoryJournalEntry;
+import com.ecommerce.backend.model.OrderItem;
+import com.ecommerce.backend.repository.InventoryJournalRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory available-stock counters for flash sales ({@code inventory.mode=ledger}).
+ * <p>
+ * Checkout reserves with a CAS loop on a per-product counter instead of
+ * locking the product row, and records each movement as an insert into
+ * inventory_journal inside the order transaction. {@link #flush()} applies
+ * the journal to products.stock as one net UPDATE per product and deletes the
+ * applied rows in the same transaction. A counter is loaded as the column
+ * value plus any unapplied journal rows, so a restart loses nothing.
+ * <p>
+ * The counters are authoritative for this process only; run a single
+ * instance (or pin each product to one instance) while the ledger is on.
+ * <p>
+ * Reservations do not touch products.updatedAt until the flush, so
+ * {@link #lastMovementAt(Long)} is what product validators must include to
+ * keep a 304 from serving stale stock.
+ */
+@Component
+public class InventoryLedger implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+    private static final String ADMIN_REFERENCE = "admin";
+
+    private final ProductRepository productRepository;
+    private final InventoryJournalRepository journalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int flushBatchSize;
+
+    private final Map<Long, AtomicLong> available = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> movedAt = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder reservations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+
+    public InventoryLedger(ProductRepository productRepository, InventoryJournalRepository journalRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${inventory.mode:database}") String mode,
+            @Value("${inventory.ledger.flush-batch-size:5000}") int flushBatchSize) {
+        this.productRepository = productRepository;
+        this.journalRepository = journalRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = "ledger".equalsIgnoreCase(mode);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves every line or none. Must run inside the order transaction: the
+     * journal rows commit with the order, and a rollback gives the stock back.
+     */
+    public void reserve(List<OrderItem> lines, String reference) {
+        List<Movement> taken = new ArrayList<>(lines.size());
+        for (OrderItem item : lines) {
+            Long productId = item.getProduct().getId();
+            int quantity = item.getQuantity();
+            if (!tryTake(productId, quantity)) {
+                release(taken);
+                rejections.increment();
+                throw new InsufficientStockException("Not enough stock for product: " + item.getProduct().getName());
+            }
+            taken.add(new Movement(productId, -quantity));
+        }
+        journal(taken, reference);
+    }
+
+    /**
+     * Sets available stock from the admin screens, journaled as the difference
+     * to the counter. With {@code expectedStock} the counter is only swapped
+     * if it still holds that value, so sales made since the admin loaded the
+     * form are not wiped out. Like {@link #reserve}, a rollback undoes it.
+     *
+     * @return false if the counter no longer matched {@code expectedStock}
+     */
+    public boolean adjustTo(Long productId, Integer expectedStock, int stock) {
+        AtomicLong counter = counter(productId);
+        long previous;
+        if (expectedStock == null) {
+            previous = counter.getAndSet(stock);
+        } else if (counter.compareAndSet(expectedStock, stock)) {
+            previous = expectedStock;
+        } else {
+            return false;
+        }
+        int delta = (int) (stock - previous);
+        if (delta != 0) {
+            journal(List.of(new Movement(productId, delta)), ADMIN_REFERENCE);
+        }
+        return true;
+    }
+
+    /**
+     * Stock to show for a product: the counter once it is loaded, else the
+     * column value the caller already read.
+     */
+    public int available(Long productId, Integer persistedStock) {
+        AtomicLong counter = enabled ? available.get(productId) : null;
+        if (counter != null) {
+            return (int) counter.get();
+        }
+        return persistedStock == null ? 0 : persistedStock;
+    }
+
+    /**
+     * Whether {@link #available} answers from the ledger counter rather than
+     * from the persisted value passed to it.
+     */
+    public boolean isCounted(Long productId) {
+        return enabled && available.containsKey(productId);
+    }
+
+    /**
+     * When this process last changed the product's counter, or null if it
+     * has not since startup.
+     */
+    public LocalDateTime lastMovementAt(Long productId) {
+        return enabled ? movedAt.get(productId) : null;
+    }
+
+    /**
+     * Applies journaled movements to products.stock, oldest first, one net
+     * UPDATE per product per batch. Skips if a flush is already running.
+     */
+    public void flush() {
+        if (!enabled || !flushLock.tryLock()) {
+            return;
+        }
+        try {
+            Integer applied;
+            do {
+                applied = transactionTemplate.execute(status -> applyBatch());
+            } while (applied != null && applied == flushBatchSize);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Counters already include unapplied rows (findAvailableStock sums them), so
+    // this only shortens the journal; requests may run before it finishes
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        long pending = journalRepository.count();
+        flush();
+        log.info("Inventory ledger enabled; applied {} journaled stock movements at startup", pending);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private int applyBatch() {
+        List<InventoryJournalEntry> entries = journalRepository.findPending(Limit.of(flushBatchSize));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        // Product id order, the same order checkout locks rows in database mode
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> net = new TreeMap<>();
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (InventoryJournalEntry entry : entries) {
+            net.merge(entry.getProductId(), entry.getDelta(), Integer::sum);
+            ids.add(entry.getId());
+        }
+        net.forEach((productId, delta) -> {
+            if (delta != 0) {
+                productRepository.adjustStock(productId, delta, now);
+            }
+        });
+        journalRepository.deleteByIdIn(ids);
+
+        flushes.increment();
+        flushedRows.add(entries.size());
+        return entries.size();
+    }
+
+    private boolean tryTake(Long productId, int quantity) {
+        AtomicLong counter = counter(productId);
+        long current;
+        do {
+            current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - quantity));
+        reservations.increment();
+        return true;
+    }
+
+    private AtomicLong counter(Long productId) {
+        return available.computeIfAbsent(productId, id -> new AtomicLong(productRepository.findAvailableStock(id)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found"))));
+    }
+
+    private void journal(List<Movement> movements, String reference) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        touch(movements);
+
+        // Registered before the insert so a failing insert still gives the counters back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(movements);
+                    }
+                }
+            });
+        }
+        try {
+            journalRepository.saveAll(movements.stream()
+                    .map(movement -> new InventoryJournalEntry(movement.productId(), movement.delta(), reference))
+                    .toList());
+        } catch (RuntimeException e) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                release(movements);
+            }
+            throw e;
+        }
+    }
+
+    private void release(List<Movement> movements) {
+        for (Movement movement : movements) {
+            AtomicLong counter = available.get(movement.productId());
+            if (counter != null) {
+                counter.addAndGet(-movement.delta());
+            }
+        }
+        touch(movements);
+        released.add(movements.size());
+    }
+
+    private void touch(List<Movement> movements) {
+        LocalDateTime now = LocalDateTime.now();
+        movements.forEach(movement -> movedAt.put(movement.productId(), now));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "inventoryLedger";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("products", available.size());
+        metrics.put("reservations", reservations.sum());
+        metrics.put("rejections", rejections.sum());
+        metrics.put("released", released.sum());
+        metrics.put("flushes", flushes.sum());
+        metrics.put("flushedRows", flushedRows.sum());
+        return metrics;
+    }
+
+    private record Movement(Long productId, int delta) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.backend.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Outermost filter: tags log lines with a request id and, at DEBUG on
+ * {@code com.ecommerce.backend.request}, writes one structured line per request
+ * with total, auth and handler time. Nothing is formatted when DEBUG is off.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger requestLog = LoggerFactory.getLogger("com.ecommerce.backend.request");
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        MDC.put("requestId", Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (requestLog.isDebugEnabled()) {
+                requestLog.debug("method={} uri={} status={} totalMs={} authMs={} handlerMs={}",
+                        request.getMethod(),
+                        request.getRequestURI(),
+                        response.getStatus(),
+                        RequestTimings.millis(System.nanoTime() - start),
+                        RequestTimings.authMillis(request),
+                        RequestTimings.handlerMillis(request));
+            }
+            MDC.remove("requestId");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ecommerce.backend.logging;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Per-request timing fields, carried as request attributes so they survive
+ * the hand-off between filters, the auth supplier and the handler interceptor.
+ */
+public final class RequestTimings {
+
+    private static final String AUTH_NANOS = RequestTimings.class.getName() + ".authNanos";
+    private static final String HANDLER_START = RequestTimings.class.getName() + ".handlerStart";
+    private static final String HANDLER_NANOS = RequestTimings.class.getName() + ".handlerNanos";
+
+    private RequestTimings() {
+    }
+
+    public static void recordAuth(HttpServletRequest request, long nanos) {
+        request.setAttribute(AUTH_NANOS, nanos);
+    }
+
+    public static void startHandler(HttpServletRequest request) {
+        request.setAttribute(HANDLER_START, System.nanoTime());
+    }
+
+    public static void endHandler(HttpServletRequest request) {
+        if (request.getAttribute(HANDLER_START) instanceof Long start) {
+            request.setAttribute(HANDLER_NANOS, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return elapsed milliseconds, or -1 when the phase did not run
+     */
+    public static double authMillis(HttpServletRequest request) {
+        return millis(request.getAttribute(AUTH_NANOS));
+    }
+
+    public static double handlerMillis(HttpServletRequest request) {
+        return millis(request.getAttribute(HANDLER_NANOS));
+    }
+
+    public static double millis(Object nanos) {
+        return nanos instanceof Long value ? value / 1_000_000.0 : -1;
+    }
+}
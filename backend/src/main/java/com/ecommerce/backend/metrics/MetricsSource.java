@@ -0,0 +1,13 @@
+package com.ecommerce.backend.metrics;
+
+import java.util.Map;
+
+/**
+ * Implemented by components that publish runtime counters on /api/admin/metrics.
+ */
+public interface MetricsSource {
+
+    String getMetricsName();
+
+    Map<String, Object> getMetrics();
+}
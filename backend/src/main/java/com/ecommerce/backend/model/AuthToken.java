@@ -4,16 +4,25 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "auth_tokens")
+@Table(name = "auth_tokens", indexes = {
+    @Index(name = "ux_auth_tokens_token_digest", columnList = "token_digest", unique = true),
+    @Index(name = "idx_auth_tokens_digest_expires", columnList = "token_digest, expires_at"),
+    @Index(name = "idx_auth_tokens_expires_at", columnList = "expires_at")
+})
 public class AuthToken {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Legacy plaintext column; cleared by AuthTokenDigestMigration and no longer written
     @Column(columnDefinition = "TEXT")
     private String token;
     
+    // Hex SHA-256 of the token handed to the client
+    @Column(name = "token_digest", length = 64)
+    private String tokenDigest;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
@@ -39,6 +48,14 @@ public class AuthToken {
         this.token = token;
     }
     
+    public String getTokenDigest() {
+        return tokenDigest;
+    }
+    
+    public void setTokenDigest(String tokenDigest) {
+        this.tokenDigest = tokenDigest;
+    }
+    
     public User getUser() {
         return user;
     }
@@ -0,0 +1,17 @@
+package com.ecommerce.backend.model;
+
+/**
+ * Shared settings for table-backed pooled id generators. MySQL has no
+ * sequences, so ids come from one row per entity in id_generators; each
+ * round trip reserves ALLOCATION_SIZE ids, which lets Hibernate batch inserts.
+ */
+public final class IdGenerators {
+    
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+    
+    private IdGenerators() {
+    }
+}
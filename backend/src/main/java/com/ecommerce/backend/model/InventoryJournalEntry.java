@@ -0,0 +1,46 @@
+package com.ecommerce.backend.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stock movement accepted by the inventory ledger but not yet applied to
+ * products.stock. Rows are deleted in the same transaction that applies them.
+ */
+@Entity
+@Table(name = "inventory_journal", indexes = {
+    @Index(name = "idx_inventory_journal_product_id", columnList = "product_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryJournalEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Integer delta;
+    
+    // Order tracking id, or "admin" for stock adjustments
+    @Column(length = 50)
+    private String reference;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public InventoryJournalEntry(Long productId, int delta, String reference) {
+        this.productId = productId;
+        this.delta = delta;
+        this.reference = reference;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -11,7 +11,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_products_category_created_at_id", columnList = "category_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,7 +33,9 @@ public class Product {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
     
-    @Column(nullable = false)
+    // Only changed through explicit UPDATE statements (checkout decrement, admin set,
+    // inventory ledger flush) so saving a loaded entity can never undo a concurrent sale
+    @Column(nullable = false, updatable = false)
     private Integer stock = 0;
     
     @Column(name = "image_url", columnDefinition = "TEXT")
@@ -0,0 +1,228 @@
+package com.ecommerce.backend.recommendation;
+
+import com.ecommerce.backend.event.OrderPlacedEvent;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.repository.OrderItemRepository;
+import com.ecommerce.backend.repository.OrderItemRepository.OrderProduct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * "Bought together" neighbours derived from order history. Keeps a symmetric
+ * co-occurrence count per product pair and, per product, its top-K neighbours
+ * by count. The initial pass reads order_items a page of orders at a time and
+ * counts each page in parallel; afterwards each committed order updates the
+ * counts and refreshes the top-K lists of its own products only.
+ * <p>
+ * A product's count row keeps at most {@code catalog.related.max-row-size}
+ * partners: once a row holds twice that many it is cut back to the strongest.
+ * Counts for partners dropped this way restart from zero if they come back,
+ * which only affects the long tail below the top K.
+ */
+@Component
+public class CoPurchaseEngine implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(CoPurchaseEngine.class);
+
+    private final OrderItemRepository orderItemRepository;
+    private final int topK;
+    private final int maxRowSize;
+    private final int pageSize;
+
+    // product id -> (co-purchased product id -> number of orders containing both)
+    private volatile Map<Long, Map<Long, Integer>> coCounts = new ConcurrentHashMap<>();
+    private volatile Map<Long, long[]> neighbours = new ConcurrentHashMap<>();
+
+    // Orders committed while the initial pass was reading, applied once it is swapped in
+    private final List<OrderPlacedEvent> placedDuringBuild = new ArrayList<>();
+    private boolean building;
+
+    private final LongAdder ordersApplied = new LongAdder();
+    private volatile long lastBuildMillis;
+
+    public CoPurchaseEngine(OrderItemRepository orderItemRepository,
+            @Value("${catalog.related.top-k:20}") int topK,
+            @Value("${catalog.related.max-row-size:200}") int maxRowSize,
+            @Value("${catalog.related.build-page-size:1000}") int pageSize) {
+        this.orderItemRepository = orderItemRepository;
+        this.topK = topK;
+        this.maxRowSize = Math.max(maxRowSize, topK);
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return up to limit product ids most often bought together with the given product, best first
+     */
+    public List<Long> neighbours(Long productId, int limit) {
+        long[] ids = neighbours.get(productId);
+        List<Long> result = new ArrayList<>();
+        if (ids == null) {
+            return result;
+        }
+        for (int i = 0; i < ids.length && i < limit; i++) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        build();
+    }
+
+    public void build() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            building = true;
+            placedDuringBuild.clear();
+        }
+
+        Map<Long, Map<Long, Integer>> newCounts = new ConcurrentHashMap<>();
+        Map<Long, long[]> newNeighbours = new ConcurrentHashMap<>();
+        // Ascending ids of every order read, to skip those also reported by events during the pass
+        long[] readOrders = new long[Math.max(pageSize, 16)];
+        int readCount = 0;
+        boolean swapped = false;
+        try {
+            long afterOrderId = 0;
+            List<Long> orderIds;
+            while (!(orderIds = orderItemRepository.findOrderIdsAfter(afterOrderId, Limit.of(pageSize))).isEmpty()) {
+                afterOrderId = orderIds.get(orderIds.size() - 1);
+                Map<Long, List<Long>> productsByOrder = orderItemRepository
+                        .findOrderProductsBetween(orderIds.get(0), afterOrderId).stream()
+                        .collect(Collectors.groupingBy(OrderProduct::getOrderId,
+                                Collectors.mapping(OrderProduct::getProductId, Collectors.toList())));
+
+                productsByOrder.values().parallelStream()
+                        .forEach(products -> addPairs(newCounts, products.stream().distinct().toList()));
+                newCounts.values().parallelStream().forEach(this::trimIfFull);
+
+                long[] pageOrders = productsByOrder.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+                if (readCount + pageOrders.length > readOrders.length) {
+                    readOrders = Arrays.copyOf(readOrders,
+                            Math.max(readOrders.length * 2, readCount + pageOrders.length));
+                }
+                System.arraycopy(pageOrders, 0, readOrders, readCount, pageOrders.length);
+                readCount += pageOrders.length;
+            }
+            newCounts.entrySet().parallelStream()
+                    .forEach(entry -> newNeighbours.put(entry.getKey(), topNeighbours(entry.getValue())));
+
+            synchronized (this) {
+                coCounts = newCounts;
+                neighbours = newNeighbours;
+                swapped = true;
+            }
+        } finally {
+            // On failure the previous index stays and the orders that arrived meanwhile are applied to it
+            synchronized (this) {
+                building = false;
+                for (OrderPlacedEvent event : placedDuringBuild) {
+                    if (!swapped || Arrays.binarySearch(readOrders, 0, readCount, event.orderId()) < 0) {
+                        apply(event);
+                    }
+                }
+                placedDuringBuild.clear();
+            }
+        }
+
+        ordersApplied.add(readCount);
+        lastBuildMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Co-purchase index built: {} orders, {} products in {} ms",
+                readCount, newNeighbours.size(), lastBuildMillis);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onOrderPlaced(OrderPlacedEvent event) {
+        if (building) {
+            placedDuringBuild.add(event);
+            return;
+        }
+        apply(event);
+    }
+
+    private void apply(OrderPlacedEvent event) {
+        List<Long> products = event.productIds();
+        if (products.size() < 2) {
+            return;
+        }
+        addPairs(coCounts, products);
+        for (Long productId : products) {
+            Map<Long, Integer> row = coCounts.get(productId);
+            trimIfFull(row);
+            neighbours.put(productId, topNeighbours(row));
+        }
+        ordersApplied.increment();
+    }
+
+    private static void addPairs(Map<Long, Map<Long, Integer>> counts, List<Long> products) {
+        for (Long product : products) {
+            Map<Long, Integer> row = counts.computeIfAbsent(product, id -> new ConcurrentHashMap<>());
+            for (Long other : products) {
+                if (!other.equals(product)) {
+                    row.merge(other, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    // Cuts a row that has doubled past the cap back to its strongest partners
+    private void trimIfFull(Map<Long, Integer> row) {
+        if (row.size() < 2 * maxRowSize) {
+            return;
+        }
+        Set<Long> keep = row.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxRowSize)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        row.keySet().retainAll(keep);
+    }
+
+    private long[] topNeighbours(Map<Long, Integer> row) {
+        return row.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(topK)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "coPurchase";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("products", neighbours.size());
+        metrics.put("ordersApplied", ordersApplied.sum());
+        metrics.put("lastBuildMillis", lastBuildMillis);
+        return metrics;
+    }
+}
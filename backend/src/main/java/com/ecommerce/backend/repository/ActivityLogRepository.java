@@ -4,6 +4,7 @@ import com.ecommerce.backend.model.ActivityLog;
 import com.ecommerce.backend.model.Admin;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
@@ -14,8 +15,15 @@ import java.util.List;
 @Repository
 public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long> {
     
+    // Log views show the admin's name, so the admin comes with each row
+    @EntityGraph(attributePaths = "admin")
     List<ActivityLog> findByAdmin(Admin admin);
     
+    @NonNull
+    @Override
+    @EntityGraph(attributePaths = "admin")
+    List<ActivityLog> findAll();
+    
     List<ActivityLog> findByAction(String action);
     
     List<ActivityLog> findByTimestampBetween(LocalDateTime startDate, LocalDateTime endDate);
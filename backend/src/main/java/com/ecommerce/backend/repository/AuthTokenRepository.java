@@ -2,16 +2,49 @@ package com.ecommerce.backend.repository;
 
 import com.ecommerce.backend.model.AuthToken;
 import com.ecommerce.backend.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AuthTokenRepository extends JpaRepository<AuthToken, Long> {
-    Optional<AuthToken> findByToken(String token);
-    Optional<AuthToken> findByTokenAndExpiresAtAfter(String token, LocalDateTime now);
+    Optional<AuthToken> findByTokenDigest(String tokenDigest);
+    @EntityGraph(attributePaths = "user")
+    Optional<AuthToken> findByTokenDigestAndExpiresAtAfter(String tokenDigest, LocalDateTime now);
+    List<AuthToken> findTop500ByTokenDigestIsNullAndTokenIsNotNull();
     void deleteAllByUser(User user);
-    void deleteByExpiresAtBefore(LocalDateTime dateTime);
+    
+    // Keyset scan over idx_auth_tokens_expires_at, ordered by (expiresAt, id)
+    @Query("SELECT t.id AS id, t.expiresAt AS expiresAt FROM AuthToken t " +
+           "WHERE t.expiresAt < :now AND (t.expiresAt > :afterExpiresAt OR (t.expiresAt = :afterExpiresAt AND t.id > :afterId)) " +
+           "ORDER BY t.expiresAt, t.id")
+    List<TokenKey> findExpiredKeys(@Param("now") LocalDateTime now,
+                                   @Param("afterExpiresAt") LocalDateTime afterExpiresAt,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+    
+    @Query("SELECT MIN(t.expiresAt) FROM AuthToken t WHERE t.expiresAt < :now")
+    LocalDateTime findOldestExpiredAt(@Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM AuthToken t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+    
+    // Never shortens a token that was extended concurrently by another node
+    @Modifying
+    @Query("UPDATE AuthToken t SET t.expiresAt = :expiresAt WHERE t.id IN :ids AND t.expiresAt < :expiresAt")
+    int extendExpiry(@Param("ids") List<Long> ids, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    interface TokenKey {
+        Long getId();
+        LocalDateTime getExpiresAt();
+    }
 }
\ No newline at end of file
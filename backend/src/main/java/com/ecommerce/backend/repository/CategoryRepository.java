@@ -2,8 +2,10 @@ package com.ecommerce.backend.repository;
 
 import com.ecommerce.backend.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,14 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByName(String name);
     
     boolean existsByName(String name);
+    
+    // Count and id sum change on insert/delete, the max timestamp on update
+    @Query("SELECT COUNT(c) AS count, COALESCE(SUM(c.id), 0) AS idSum, MAX(c.updatedAt) AS lastUpdatedAt FROM Category c")
+    CategoriesVersion findVersion();
+    
+    interface CategoriesVersion {
+        Long getCount();
+        Long getIdSum();
+        LocalDateTime getLastUpdatedAt();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.ecommerce.backend.repository;
+
+import com.ecommerce.backend.model.InventoryJournalEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryJournalRepository extends JpaRepository<InventoryJournalEntry, Long> {
+    
+    // Oldest pending movements first, so a partial flush never reorders them
+    @Query("SELECT j FROM InventoryJournalEntry j ORDER BY j.id")
+    List<InventoryJournalEntry> findPending(Limit limit);
+    
+    @Modifying
+    @Query("DELETE FROM InventoryJournalEntry j WHERE j.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
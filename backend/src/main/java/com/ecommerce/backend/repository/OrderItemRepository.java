@@ -3,6 +3,7 @@ package com.ecommerce.backend.repository;
 import com.ecommerce.backend.model.Order;
 import com.ecommerce.backend.model.OrderItem;
 import com.ecommerce.backend.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,4 +20,26 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.product.id = :productId")
     Integer getTotalSoldQuantityByProductId(@Param("productId") Long productId);
+    
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS quantity FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductSales> findSoldQuantities();
+    
+    // Keyset pages of order ids, so order history is read a bounded slice at a time
+    @Query("SELECT DISTINCT oi.order.id FROM OrderItem oi WHERE oi.order.id > :afterOrderId ORDER BY oi.order.id")
+    List<Long> findOrderIdsAfter(@Param("afterOrderId") Long afterOrderId, Limit limit);
+    
+    @Query("SELECT oi.order.id AS orderId, oi.product.id AS productId FROM OrderItem oi " +
+           "WHERE oi.order.id BETWEEN :fromOrderId AND :toOrderId")
+    List<OrderProduct> findOrderProductsBetween(@Param("fromOrderId") Long fromOrderId,
+                                                @Param("toOrderId") Long toOrderId);
+    
+    interface ProductSales {
+        Long getProductId();
+        Long getQuantity();
+    }
+    
+    interface OrderProduct {
+        Long getOrderId();
+        Long getProductId();
+    }
 }
\ No newline at end of file
@@ -1,21 +1,37 @@
 package com.ecommerce.backend.repository;
 
 import com.ecommerce.backend.model.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    // Order views list every line with its product, and open-in-view is off, so they are fetched up front
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
     Optional<Order> findByTrackingId(String trackingId);
 
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    Optional<Order> findWithItemsById(Long id);
+
+    // Second step of a page: the page query itself cannot fetch a collection without paging in memory
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT COALESCE(o.updatedAt, o.orderDate) FROM Order o WHERE o.trackingId = :trackingId")
+    Optional<LocalDateTime> findVersionByTrackingId(@Param("trackingId") String trackingId);
+
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.product"})
     List<Order> findByCustomerEmail(String email);
 
     List<Order> findByStatus(Order.OrderStatus status);
@@ -26,4 +42,23 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
     @Query("SELECT o FROM Order o WHERE o.customerName LIKE %:keyword% OR o.customerEmail LIKE %:keyword% OR o.trackingId LIKE %:keyword%")
     List<Order> searchOrders(@Param("keyword") String keyword);
-}
\ No newline at end of file
+
+    // Keyset pages over (orderDate, id), newest first: no OFFSET and no count query
+    @Query("SELECT o FROM Order o ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findKeysetFirst(Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findKeysetAfter(@Param("orderDate") LocalDateTime orderDate, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findKeysetFirstByStatus(@Param("status") Order.OrderStatus status, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findKeysetAfterByStatus(@Param("status") Order.OrderStatus status,
+                                        @Param("orderDate") LocalDateTime orderDate,
+                                        @Param("id") Long id,
+                                        Limit limit);
+}
@@ -4,8 +4,11 @@ package com.ecommerce.backend.repository;
 import com.ecommerce.backend.model.Product;
 import com.ecommerce.backend.model.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +17,9 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     
     List<ProductImage> findByProduct(Product product);
     
+    @Query("SELECT i FROM ProductImage i WHERE i.product.id IN :productIds ORDER BY i.id")
+    List<ProductImage> findByProductIds(@Param("productIds") Collection<Long> productIds);
+    
     Optional<ProductImage> findByProductAndIsMainTrue(Product product);
     
     void deleteByProduct(Product product);
@@ -5,19 +5,34 @@ import com.ecommerce.backend.model.Category;
 import com.ecommerce.backend.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     
     List<Product> findByCategory(Category category);
     
+    // Listing pages fetch the category in the same query; images are loaded in one batch by the caller
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Pageable pageable);
+    
+    @EntityGraph(attributePaths = {"category", "images"})
+    Optional<Product> findDetailedById(Long id);
+    
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategory(Category category, Pageable pageable);
     
     List<Product> findByNameContainingIgnoreCase(String name);
@@ -25,6 +40,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.price BETWEEN :minPrice AND :maxPrice")
     List<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, @Param("maxPrice") BigDecimal maxPrice);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
 Page<Product> searchByKeywordPaged(@Param("keyword") String keyword, Pageable pageable);
 
@@ -33,4 +49,104 @@ Page<Product> searchByKeywordPaged(@Param("keyword") String keyword, Pageable pa
     
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:keyword% OR p.description LIKE %:keyword%")
     List<Product> searchByKeyword(@Param("keyword") String keyword);
+    
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByIdIn(Collection<Long> ids);
+    
+    // Check and decrement in one statement: concurrent checkouts can never take stock below zero.
+    // Stock updates take updatedAt from the caller so every write uses the JVM clock, as @PreUpdate does.
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.updatedAt = :now " +
+           "WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+    
+    // Absolute stock set from the admin screens; entity saves never write stock (see Product)
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = :stock, p.updatedAt = :now WHERE p.id = :id")
+    int setStock(@Param("id") Long id, @Param("stock") int stock, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = :stock, p.updatedAt = :now WHERE p.id = :id AND p.stock = :expected")
+    int compareAndSetStock(@Param("id") Long id, @Param("expected") int expected, @Param("stock") int stock,
+                           @Param("now") LocalDateTime now);
+    
+    // Applies a net ledger movement; the ledger has already checked availability
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :delta, p.updatedAt = :now WHERE p.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+    
+    // Column value plus movements still waiting in the journal, read in one statement
+    @Query("SELECT p.stock + COALESCE((SELECT SUM(j.delta) FROM InventoryJournalEntry j WHERE j.productId = p.id), 0) " +
+           "FROM Product p WHERE p.id = :id")
+    Optional<Long> findAvailableStock(@Param("id") Long id);
+    
+    // Keyset pages over (createdAt, id): no OFFSET and no count query
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p ORDER BY p.createdAt, p.id")
+    List<Product> findKeysetFirst(Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id) " +
+           "ORDER BY p.createdAt, p.id")
+    List<Product> findKeysetAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.category = :category ORDER BY p.createdAt, p.id")
+    List<Product> findKeysetFirstByCategory(@Param("category") Category category, Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.category = :category " +
+           "AND (p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id)) " +
+           "ORDER BY p.createdAt, p.id")
+    List<Product> findKeysetAfterByCategory(@Param("category") Category category,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+    
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description FROM Product p")
+    List<SearchDocument> findAllSearchDocuments();
+    
+    @Query("SELECT p.id AS id, p.name AS name, p.description AS description FROM Product p WHERE p.id = :id")
+    Optional<SearchDocument> findSearchDocumentById(@Param("id") Long id);
+    
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.category.id AS categoryId FROM Product p")
+    List<SuggestionSource> findAllSuggestionSources();
+    
+    @Query("SELECT p.id AS id, p.name AS name, p.stock AS stock, p.category.id AS categoryId FROM Product p WHERE p.id = :id")
+    Optional<SuggestionSource> findSuggestionSourceById(@Param("id") Long id);
+    
+    @Query("SELECT p.updatedAt AS updatedAt, c.updatedAt AS categoryUpdatedAt " +
+           "FROM Product p LEFT JOIN p.category c WHERE p.id = :id")
+    Optional<ProductVersion> findVersionById(@Param("id") Long id);
+    
+    @Query("SELECT p.id AS id, p.price AS price, p.stock AS stock, p.category.id AS categoryId FROM Product p")
+    List<FacetSource> findAllFacetSources();
+    
+    @Query("SELECT p.id AS id, p.price AS price, p.stock AS stock, p.category.id AS categoryId FROM Product p WHERE p.id IN :ids")
+    List<FacetSource> findFacetSourcesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    interface SearchDocument {
+        Long getId();
+        String getName();
+        String getDescription();
+    }
+    
+    interface SuggestionSource {
+        Long getId();
+        String getName();
+        Integer getStock();
+        Long getCategoryId();
+    }
+    
+    interface ProductVersion {
+        LocalDateTime getUpdatedAt();
+        LocalDateTime getCategoryUpdatedAt();
+    }
+    
+    interface FacetSource {
+        Long getId();
+        BigDecimal getPrice();
+        Integer getStock();
+        Long getCategoryId();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,391 @@
+package com.ecommerce.backend.search;
+
+import com.ecommerce.backend.dto.CategoryFacetDTO;
+import com.ecommerce.backend.dto.PriceBucketDTO;
+import com.ecommerce.backend.event.CategoryChangedEvent;
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.inventory.InventoryLedger;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.ProductRepository.FacetSource;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Answers combined catalog filters (price range, category, availability, text)
+ * from compact in-memory columns: price in cents as a primitive array, category
+ * id per row and an in-stock bitset. Filters are bitset intersections. Each
+ * facet is counted with every filter except its own applied.
+ * <p>
+ * Rows are sorted by product id. Checkout stock changes only flip in-stock
+ * bits, read from the inventory ledger counters when it holds them; other
+ * catalog changes rebuild the columns. Both run on a background thread, and
+ * bursts of changes coalesce into one pass.
+ */
+@Component
+public class FacetEngine implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetEngine.class);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final SearchEngine searchEngine;
+    private final InventoryLedger inventoryLedger;
+    private final long[] bucketBoundsCents;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "facet-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean stockUpdatePending = new AtomicBoolean();
+    private final Set<Long> stockChanged = ConcurrentHashMap.newKeySet();
+    private volatile Columns columns = Columns.EMPTY;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public FacetEngine(ProductRepository productRepository, CategoryRepository categoryRepository,
+            SearchEngine searchEngine, InventoryLedger inventoryLedger,
+            @Value("${catalog.facets.price-buckets:25,50,100,250,500}") List<BigDecimal> priceBuckets) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.searchEngine = searchEngine;
+        this.inventoryLedger = inventoryLedger;
+        this.bucketBoundsCents = priceBuckets.stream().mapToLong(FacetEngine::toCents).sorted().toArray();
+    }
+
+    public FacetResult filter(FacetQuery query, Pageable pageable) {
+        queries.increment();
+        Columns current = columns;
+        int rows = current.productIds.length;
+
+        // Text matches restrict the candidate rows and define the result order;
+        // until the search index is ready, text is ignored rather than failing the filter
+        List<Long> ranked = null;
+        BitSet base = new BitSet(rows);
+        if (query.text() != null && !query.text().isBlank() && searchEngine.isReady()) {
+            ranked = searchEngine.matchAll(query.text());
+        }
+        if (ranked != null) {
+            for (Long productId : ranked) {
+                int row = Arrays.binarySearch(current.productIds, productId);
+                if (row >= 0) {
+                    base.set(row);
+                }
+            }
+        } else {
+            base.set(0, rows);
+        }
+
+        BitSet categoryMask = query.categoryId() == null ? null
+                : current.byCategory.getOrDefault(query.categoryId(), new BitSet());
+        BitSet stockMask = Boolean.TRUE.equals(query.inStock()) ? current.inStock : null;
+        BitSet priceMask = priceMask(current, base, query.minPrice(), query.maxPrice());
+
+        BitSet result = intersect(base, categoryMask, stockMask, priceMask);
+
+        List<Long> matching = new ArrayList<>(result.cardinality());
+        if (ranked != null) {
+            for (Long productId : ranked) {
+                int row = Arrays.binarySearch(current.productIds, productId);
+                if (row >= 0 && result.get(row)) {
+                    matching.add(productId);
+                }
+            }
+        } else {
+            for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+                matching.add(current.productIds[row]);
+            }
+        }
+        int from = (int) Math.min(pageable.getOffset(), matching.size());
+        int to = Math.min(from + pageable.getPageSize(), matching.size());
+
+        return new FacetResult(
+                new ArrayList<>(matching.subList(from, to)),
+                matching.size(),
+                categoryFacets(current, intersect(base, stockMask, priceMask)),
+                priceFacets(current, intersect(base, categoryMask, stockMask)),
+                intersect(base, categoryMask, priceMask, current.inStock).cardinality());
+    }
+
+    /**
+     * Products in a category straight from memory, in-stock ones first.
+     */
+    public List<Long> productIdsInCategory(Long categoryId, int limit, Set<Long> excluded) {
+        Columns current = columns;
+        BitSet inCategory = current.byCategory.get(categoryId);
+        List<Long> productIds = new ArrayList<>(limit);
+        if (inCategory == null) {
+            return productIds;
+        }
+        BitSet available = intersect(inCategory, current.inStock);
+        BitSet soldOut = (BitSet) inCategory.clone();
+        soldOut.andNot(current.inStock);
+        for (BitSet rows : List.of(available, soldOut)) {
+            for (int row = rows.nextSetBit(0); row >= 0 && productIds.size() < limit; row = rows.nextSetBit(row + 1)) {
+                if (!excluded.contains(current.productIds[row])) {
+                    productIds.add(current.productIds[row]);
+                }
+            }
+        }
+        return productIds;
+    }
+
+    private static BitSet priceMask(Columns current, BitSet base, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        long min = minPrice == null ? Long.MIN_VALUE : toCents(minPrice);
+        long max = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice);
+        BitSet mask = new BitSet(current.priceCents.length);
+        for (int row = base.nextSetBit(0); row >= 0; row = base.nextSetBit(row + 1)) {
+            long price = current.priceCents[row];
+            if (price >= min && price <= max) {
+                mask.set(row);
+            }
+        }
+        return mask;
+    }
+
+    private static BitSet intersect(BitSet base, BitSet... masks) {
+        BitSet result = (BitSet) base.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private static List<CategoryFacetDTO> categoryFacets(Columns current, BitSet rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long categoryId = current.categoryIds[row];
+            if (categoryId != Columns.NO_CATEGORY) {
+                counts.merge(categoryId, 1L, Long::sum);
+            }
+        }
+        List<CategoryFacetDTO> facets = new ArrayList<>(counts.size());
+        counts.forEach((categoryId, count) ->
+                facets.add(new CategoryFacetDTO(categoryId, current.categoryNames.get(categoryId), count)));
+        facets.sort(Comparator.comparingLong(CategoryFacetDTO::getCount).reversed()
+                .thenComparing(CategoryFacetDTO::getCategoryId));
+        return facets;
+    }
+
+    private List<PriceBucketDTO> priceFacets(Columns current, BitSet rows) {
+        long[] counts = new long[bucketBoundsCents.length + 1];
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int bucket = Arrays.binarySearch(bucketBoundsCents, current.priceCents[row]);
+            // Bounds are lower-inclusive: a price equal to a bound opens the next bucket
+            counts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+        }
+        List<PriceBucketDTO> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            BigDecimal min = i == 0 ? BigDecimal.ZERO.setScale(2) : fromCents(bucketBoundsCents[i - 1]);
+            BigDecimal max = i == bucketBoundsCents.length ? null : fromCents(bucketBoundsCents[i]);
+            buckets.add(new PriceBucketDTO(min, max, counts[i]));
+        }
+        return buckets;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // Runs on the checkout thread after commit, so it only queues work
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.stockOnly()) {
+            stockChanged.add(event.productId());
+            scheduleStockUpdate();
+        } else {
+            requestRebuild();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        requestRebuild();
+    }
+
+    // Queues a stock update unless one is already waiting to start
+    private void scheduleStockUpdate() {
+        if (stockUpdatePending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                stockUpdatePending.set(false);
+                try {
+                    updateStock();
+                } catch (RuntimeException e) {
+                    log.error("Failed to update facet stock", e);
+                }
+            });
+        }
+    }
+
+    // Copy-on-write so concurrent queries always see a consistent bitset
+    private synchronized void updateStock() {
+        List<Long> changed = new ArrayList<>(stockChanged);
+        stockChanged.removeAll(changed);
+
+        // Ledger counters answer from memory; only products without one are read, in one query
+        Map<Long, Boolean> available = new HashMap<>();
+        List<Long> unread = new ArrayList<>();
+        for (Long productId : changed) {
+            if (inventoryLedger.isCounted(productId)) {
+                available.put(productId, inventoryLedger.available(productId, null) > 0);
+            } else {
+                unread.add(productId);
+            }
+        }
+        if (!unread.isEmpty()) {
+            for (FacetSource product : productRepository.findFacetSourcesByIdIn(unread)) {
+                available.put(product.getId(), inventoryLedger.available(product.getId(), product.getStock()) > 0);
+            }
+        }
+
+        Columns current = columns;
+        BitSet inStock = null;
+        for (Map.Entry<Long, Boolean> entry : available.entrySet()) {
+            int row = Arrays.binarySearch(current.productIds, entry.getKey());
+            if (row < 0 || current.inStock.get(row) == entry.getValue()) {
+                continue;
+            }
+            if (inStock == null) {
+                inStock = (BitSet) current.inStock.clone();
+            }
+            inStock.set(row, entry.getValue());
+        }
+        if (inStock != null) {
+            columns = new Columns(current.productIds, current.priceCents, current.categoryIds, inStock,
+                    current.byCategory, current.categoryNames);
+        }
+    }
+
+    /**
+     * Queues a rebuild unless one is already waiting to start.
+     */
+    public void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Failed to rebuild facet columns", e);
+                }
+            });
+        }
+    }
+
+    private synchronized void rebuild() {
+        long start = System.nanoTime();
+        List<FacetSource> products = new ArrayList<>(productRepository.findAllFacetSources());
+        products.sort(Comparator.comparing(FacetSource::getId));
+
+        int rows = products.size();
+        long[] productIds = new long[rows];
+        long[] priceCents = new long[rows];
+        long[] categoryIds = new long[rows];
+        BitSet inStock = new BitSet(rows);
+        Map<Long, BitSet> byCategory = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            FacetSource product = products.get(row);
+            productIds[row] = product.getId();
+            priceCents[row] = product.getPrice() == null ? 0 : toCents(product.getPrice());
+            categoryIds[row] = product.getCategoryId() == null ? Columns.NO_CATEGORY : product.getCategoryId();
+            if (inventoryLedger.available(product.getId(), product.getStock()) > 0) {
+                inStock.set(row);
+            }
+            if (product.getCategoryId() != null) {
+                byCategory.computeIfAbsent(product.getCategoryId(), id -> new BitSet(rows)).set(row);
+            }
+        }
+        Map<Long, String> categoryNames = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoryNames.put(category.getId(), category.getName());
+        }
+
+        columns = new Columns(productIds, priceCents, categoryIds, inStock, byCategory, categoryNames);
+        rebuilds.increment();
+        lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        log.debug("Facet columns rebuilt: {} products in {} ms", rows, lastRebuildMillis);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "facets";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Columns current = columns;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("products", current.productIds.length);
+        metrics.put("categories", current.byCategory.size());
+        metrics.put("queries", queries.sum());
+        metrics.put("rebuilds", rebuilds.sum());
+        metrics.put("lastRebuildMillis", lastRebuildMillis);
+        return metrics;
+    }
+
+    public record FacetQuery(BigDecimal minPrice, BigDecimal maxPrice, Long categoryId, Boolean inStock, String text) {
+    }
+
+    public record FacetResult(List<Long> productIds, long total, List<CategoryFacetDTO> categories,
+            List<PriceBucketDTO> priceBuckets, long inStockCount) {
+    }
+
+    private record Columns(long[] productIds, long[] priceCents, long[] categoryIds, BitSet inStock,
+            Map<Long, BitSet> byCategory, Map<Long, String> categoryNames) {
+
+        static final long NO_CATEGORY = -1L;
+        static final Columns EMPTY = new Columns(new long[0], new long[0], new long[0], new BitSet(),
+                Map.of(), Map.of());
+    }
+}
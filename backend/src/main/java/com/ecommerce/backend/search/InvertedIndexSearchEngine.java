@@ -0,0 +1,281 @@
+package com.ecommerce.backend.search;
+
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.ProductRepository.SearchDocument;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over product name and description, ranked with
+ * BM25. Name terms count {@value #NAME_BOOST} times. Every query term must
+ * match; the last one also matches as a prefix so results follow typing.
+ * A prefix expands to at most {@value #MAX_PREFIX_EXPANSIONS} terms, those in
+ * the most documents, so for one- or two-letter prefixes the total is a
+ * lower bound.
+ * Built with parallel tokenization at startup and kept current from
+ * committed {@link ProductChangedEvent}s.
+ */
+@Component
+public class InvertedIndexSearchEngine implements SearchEngine, MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(InvertedIndexSearchEngine.class);
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_BOOST = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private final ProductRepository productRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (product id -> weighted term frequency)
+    private TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private Map<Long, IndexedDocument> documents = new HashMap<>();
+    private long totalLength;
+
+    // Products changed while a rebuild was reading its snapshot, re-indexed once it is swapped in
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private volatile boolean ready;
+    private volatile long lastRebuildMillis;
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+
+    public InvertedIndexSearchEngine(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        rebuilding = true;
+        changedDuringRebuild.clear();
+        try {
+            List<IndexedDocument> analyzed = productRepository.findAllSearchDocuments().parallelStream()
+                    .map(InvertedIndexSearchEngine::analyze)
+                    .collect(Collectors.toList());
+
+            TreeMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+            Map<Long, IndexedDocument> newDocuments = new HashMap<>();
+            long newTotalLength = 0;
+            for (IndexedDocument document : analyzed) {
+                addPostings(newPostings, document);
+                newDocuments.put(document.productId(), document);
+                newTotalLength += document.length();
+            }
+
+            lock.writeLock().lock();
+            try {
+                postings = newPostings;
+                documents = newDocuments;
+                totalLength = newTotalLength;
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            changedDuringRebuild.forEach(this::reindex);
+            changedDuringRebuild.clear();
+
+            ready = true;
+            lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Search index built: {} products, {} terms in {} ms",
+                    newDocuments.size(), newPostings.size(), lastRebuildMillis);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.stockOnly()) {
+            return;
+        }
+        if (rebuilding) {
+            changedDuringRebuild.add(event.productId());
+        }
+        reindex(event.productId());
+    }
+
+    private void reindex(Long productId) {
+        IndexedDocument document = productRepository.findSearchDocumentById(productId)
+                .map(InvertedIndexSearchEngine::analyze)
+                .orElse(null);
+
+        lock.writeLock().lock();
+        try {
+            IndexedDocument previous = documents.remove(productId);
+            if (previous != null) {
+                totalLength -= previous.length();
+                for (String term : previous.termFrequencies().keySet()) {
+                    Map<Long, Integer> posting = postings.get(term);
+                    if (posting != null) {
+                        posting.remove(productId);
+                        if (posting.isEmpty()) {
+                            postings.remove(term);
+                        }
+                    }
+                }
+            }
+            if (document != null) {
+                addPostings(postings, document);
+                documents.put(productId, document);
+                totalLength += document.length();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        updates.increment();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public SearchHits search(String query, Pageable pageable) {
+        List<Long> ranked = matchAll(query);
+        if (ranked == null) {
+            return null;
+        }
+        int from = (int) Math.min(pageable.getOffset(), ranked.size());
+        int to = Math.min(from + pageable.getPageSize(), ranked.size());
+        return new SearchHits(new ArrayList<>(ranked.subList(from, to)), ranked.size());
+    }
+
+    @Override
+    public List<Long> matchAll(String query) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        if (terms.isEmpty()) {
+            return null;
+        }
+        searches.increment();
+
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            double averageLength = documentCount == 0 ? 1.0 : (double) totalLength / documentCount;
+
+            for (int i = 0; i < terms.size() && (scores == null || !scores.isEmpty()); i++) {
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Map<Long, Integer> posting : matchingPostings(terms.get(i), i == terms.size() - 1)) {
+                    double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+                    for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                        int length = documents.get(entry.getKey()).length();
+                        double tf = entry.getValue();
+                        double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                        // Several prefix expansions may hit one product; keep its best match
+                        termScores.merge(entry.getKey(), score, Math::max);
+                    }
+                }
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((productId, score) -> score + termScores.get(productId));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private List<Map<Long, Integer>> matchingPostings(String term, boolean prefix) {
+        if (!prefix) {
+            Map<Long, Integer> posting = postings.get(term);
+            return posting == null ? List.of() : List.of(posting);
+        }
+        NavigableMap<String, Map<Long, Integer>> expansions =
+                postings.subMap(term, true, term + Character.MAX_VALUE, false);
+        if (expansions.size() <= MAX_PREFIX_EXPANSIONS) {
+            return new ArrayList<>(expansions.values());
+        }
+        // Short prefixes expand to many terms: keep the ones in the most documents, so the
+        // capped result still covers most matches instead of an alphabetical slice
+        return expansions.values().stream()
+                .sorted(Comparator.comparingInt((Map<Long, Integer> posting) -> posting.size()).reversed())
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .collect(Collectors.toList());
+    }
+
+    private static IndexedDocument analyze(SearchDocument source) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = 0;
+        for (String term : Tokenizer.tokenize(source.getName())) {
+            termFrequencies.merge(term, NAME_BOOST, Integer::sum);
+            length += NAME_BOOST;
+        }
+        for (String term : Tokenizer.tokenize(source.getDescription())) {
+            termFrequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        return new IndexedDocument(source.getId(), termFrequencies, Math.max(length, 1));
+    }
+
+    private static void addPostings(Map<String, Map<Long, Integer>> postings, IndexedDocument document) {
+        document.termFrequencies().forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new HashMap<>()).put(document.productId(), frequency));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "searchIndex";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            metrics.put("documents", documents.size());
+            metrics.put("terms", postings.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        metrics.put("ready", ready);
+        metrics.put("searches", searches.sum());
+        metrics.put("updates", updates.sum());
+        metrics.put("lastRebuildMillis", lastRebuildMillis);
+        return metrics;
+    }
+
+    private record IndexedDocument(Long productId, Map<String, Integer> termFrequencies, int length) {
+    }
+}
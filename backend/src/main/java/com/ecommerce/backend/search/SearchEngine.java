@@ -0,0 +1,30 @@
+package com.ecommerce.backend.search;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Full-text product search. Implementations rank products and return only
+ * ids; callers load the entities for the requested page.
+ */
+public interface SearchEngine {
+
+    /**
+     * @return false while the engine cannot answer queries, e.g. during its first build
+     */
+    boolean isReady();
+
+    /**
+     * @return ranked hits for the page, or null when the query has no searchable terms
+     */
+    SearchHits search(String query, Pageable pageable);
+
+    /**
+     * @return every matching product id, best first, or null when the query has no searchable terms
+     */
+    List<Long> matchAll(String query);
+
+    record SearchHits(List<Long> productIds, long total) {
+    }
+}
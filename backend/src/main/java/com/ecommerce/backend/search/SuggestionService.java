@@ -0,0 +1,233 @@
+package com.ecommerce.backend.search;
+
+import com.ecommerce.backend.dto.SuggestionDTO;
+import com.ecommerce.backend.event.CategoryChangedEvent;
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.OrderItemRepository;
+import com.ecommerce.backend.repository.OrderItemRepository.ProductSales;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.ProductRepository.SuggestionSource;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Typeahead over product and category names, ranked by units sold with stock
+ * as the tie-breaker. Lookups read an immutable {@link SuggestionTrie}.
+ * <p>
+ * The names, stock and sales the trie is built from are kept in memory.
+ * A product or category change reloads only that row before the trie is
+ * rebuilt from memory; the full reload (including sales) runs at startup
+ * and on the scheduled refresh. Rebuilds run on a background thread and
+ * bursts of changes coalesce into one.
+ */
+@Service
+public class SuggestionService implements MetricsSource {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionService.class);
+
+    public static final String TYPE_PRODUCT = "PRODUCT";
+    public static final String TYPE_CATEGORY = "CATEGORY";
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final int maxResults;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggestion-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    private final Set<Long> changedProducts = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedCategories = ConcurrentHashMap.newKeySet();
+    private volatile SuggestionTrie<SuggestionDTO> trie = SuggestionTrie.<SuggestionDTO>builder(1).build();
+
+    // Only touched on the rebuild thread
+    private final Map<Long, ProductEntry> products = new HashMap<>();
+    private final Map<Long, String> categories = new HashMap<>();
+    private Map<Long, Long> soldByProduct = Map.of();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public SuggestionService(ProductRepository productRepository, CategoryRepository categoryRepository,
+            OrderItemRepository orderItemRepository,
+            @Value("${catalog.suggest.max-results:10}") int maxResults) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.maxResults = maxResults;
+    }
+
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        lookups.increment();
+        return trie.lookup(query, Math.min(limit, maxResults));
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestRebuild();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Checkout only moves popularity; the scheduled refresh picks that up
+        if (!event.stockOnly()) {
+            changedProducts.add(event.productId());
+            scheduleRebuild();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        changedCategories.add(event.categoryId());
+        scheduleRebuild();
+    }
+
+    /**
+     * Queues a full reload of names, stock and sales.
+     */
+    public void requestRebuild() {
+        reloadRequested.set(true);
+        scheduleRebuild();
+    }
+
+    // Queues a rebuild unless one is already waiting to start
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Failed to rebuild suggestion index", e);
+                }
+            });
+        }
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        if (reloadRequested.getAndSet(false)) {
+            // Changes arriving during the reload stay queued and are applied by the next rebuild
+            changedProducts.clear();
+            changedCategories.clear();
+            reloadAll();
+        } else {
+            applyChanges();
+        }
+
+        Map<Long, Long> soldByCategory = new HashMap<>();
+        SuggestionTrie.Builder<SuggestionDTO> builder = SuggestionTrie.builder(maxResults);
+        products.forEach((productId, product) -> {
+            long sold = soldByProduct.getOrDefault(productId, 0L);
+            // Units sold dominate; stock only breaks ties between equally popular products
+            builder.add(product.name(), sold + Math.min(product.stock(), 1000) / 1001.0,
+                    new SuggestionDTO(TYPE_PRODUCT, productId, product.name()));
+            if (product.categoryId() != null) {
+                soldByCategory.merge(product.categoryId(), sold, Long::sum);
+            }
+        });
+        categories.forEach((categoryId, name) ->
+                builder.add(name, soldByCategory.getOrDefault(categoryId, 0L),
+                        new SuggestionDTO(TYPE_CATEGORY, categoryId, name)));
+
+        trie = builder.build();
+        rebuilds.increment();
+        lastRebuildMillis = (System.nanoTime() - start) / 1_000_000;
+        log.debug("Suggestion index rebuilt: {} entries, {} nodes in {} ms",
+                trie.size(), trie.nodeCount(), lastRebuildMillis);
+    }
+
+    private void reloadAll() {
+        soldByProduct = orderItemRepository.findSoldQuantities().stream()
+                .collect(Collectors.toMap(ProductSales::getProductId, ProductSales::getQuantity));
+        products.clear();
+        productRepository.findAllSuggestionSources()
+                .forEach(product -> products.put(product.getId(), ProductEntry.of(product)));
+        categories.clear();
+        categoryRepository.findAll().forEach(category -> categories.put(category.getId(), category.getName()));
+        reloads.increment();
+    }
+
+    private void applyChanges() {
+        for (Long productId : drain(changedProducts)) {
+            productRepository.findSuggestionSourceById(productId).ifPresentOrElse(
+                    product -> products.put(productId, ProductEntry.of(product)),
+                    () -> products.remove(productId));
+        }
+        for (Long categoryId : drain(changedCategories)) {
+            categoryRepository.findById(categoryId).ifPresentOrElse(
+                    category -> categories.put(categoryId, category.getName()),
+                    () -> categories.remove(categoryId));
+        }
+    }
+
+    private static List<Long> drain(Set<Long> changed) {
+        List<Long> ids = new ArrayList<>(changed);
+        changed.removeAll(ids);
+        return ids;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "suggestions";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        SuggestionTrie<SuggestionDTO> current = trie;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("entries", current.size());
+        metrics.put("nodes", current.nodeCount());
+        metrics.put("lookups", lookups.sum());
+        metrics.put("rebuilds", rebuilds.sum());
+        metrics.put("reloads", reloads.sum());
+        metrics.put("lastRebuildMillis", lastRebuildMillis);
+        return metrics;
+    }
+
+    private record ProductEntry(String name, int stock, Long categoryId) {
+
+        static ProductEntry of(SuggestionSource source) {
+            int stock = source.getStock() == null ? 0 : Math.max(source.getStock(), 0);
+            return new ProductEntry(source.getName(), stock, source.getCategoryId());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.ecommerce.backend.search;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable radix trie over the words of each suggestion, flattened into
+ * parallel arrays. Chains of single-child nodes are merged into one edge
+ * whose label lives in a shared char array; children of a node are stored
+ * contiguously and sorted by first label character. Every node carries its
+ * precomputed top-N suggestions and every word end the suggestions that
+ * contain that word.
+ * <p>
+ * A one-word query walks the edges and returns the node's top-N without
+ * scanning the subtree. For several words, the earlier words must be whole
+ * words of the suggestion and the last one a prefix of one of its words, in
+ * any order.
+ *
+ * @param <T> the suggestion payload
+ */
+public final class SuggestionTrie<T> {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final List<T> suggestions;
+    private final double[] weights;
+    private final String[] keys;
+
+    private final char[] edgeChars;
+    private final int[] edgeStart;
+    private final int[] edgeLength;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] topSuggestions;
+    private final int[] wordStart;
+    private final int[] wordCount;
+    private final int[] wordSuggestions;
+
+    private SuggestionTrie(List<T> suggestions, double[] weights, String[] keys, char[] edgeChars,
+            int[] edgeStart, int[] edgeLength, int[] childStart, int[] childCount,
+            int[] topStart, int[] topCount, int[] topSuggestions,
+            int[] wordStart, int[] wordCount, int[] wordSuggestions) {
+        this.suggestions = suggestions;
+        this.weights = weights;
+        this.keys = keys;
+        this.edgeChars = edgeChars;
+        this.edgeStart = edgeStart;
+        this.edgeLength = edgeLength;
+        this.childStart = childStart;
+        this.childCount = childCount;
+        this.topStart = topStart;
+        this.topCount = topCount;
+        this.topSuggestions = topSuggestions;
+        this.wordStart = wordStart;
+        this.wordCount = wordCount;
+        this.wordSuggestions = wordSuggestions;
+    }
+
+    /**
+     * @return up to limit suggestions matching the query, best first
+     */
+    public List<T> lookup(String query, int limit) {
+        String key = fold(query);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String[] terms = key.split(" ");
+        String last = terms[terms.length - 1];
+        int node = find(last, false);
+        if (node < 0) {
+            return List.of();
+        }
+        if (terms.length == 1) {
+            int count = Math.min(limit, topCount[node]);
+            List<T> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(suggestions.get(topSuggestions[topStart[node] + i]));
+            }
+            return result;
+        }
+
+        // Suggestions containing every earlier word, then those with a word starting with the last term
+        int[] candidates = null;
+        for (int i = 0; i < terms.length - 1; i++) {
+            int wordNode = find(terms[i], true);
+            if (wordNode < 0) {
+                return List.of();
+            }
+            int[] containing = Arrays.copyOfRange(wordSuggestions,
+                    wordStart[wordNode], wordStart[wordNode] + wordCount[wordNode]);
+            candidates = candidates == null ? containing : intersect(candidates, containing);
+            if (candidates.length == 0) {
+                return List.of();
+            }
+        }
+        List<Integer> matching = new ArrayList<>();
+        for (int index : candidates) {
+            if (hasWordStartingWith(keys[index], last)) {
+                matching.add(index);
+            }
+        }
+        matching.sort(rankOrder(weights));
+        return matching.stream()
+                .limit(limit)
+                .map(suggestions::get)
+                .toList();
+    }
+
+    public int nodeCount() {
+        return edgeStart.length;
+    }
+
+    public int size() {
+        return suggestions.size();
+    }
+
+    /**
+     * Walks the edges for text. With wholeWord the walk must end exactly on a
+     * node; otherwise it may stop inside an edge, whose subtree then holds
+     * every word starting with text.
+     */
+    private int find(String text, boolean wholeWord) {
+        int node = 0;
+        int i = 0;
+        while (i < text.length()) {
+            int child = child(node, text.charAt(i));
+            if (child < 0) {
+                return -1;
+            }
+            int start = edgeStart[child];
+            int length = edgeLength[child];
+            int compared = Math.min(length, text.length() - i);
+            for (int k = 1; k < compared; k++) {
+                if (edgeChars[start + k] != text.charAt(i + k)) {
+                    return -1;
+                }
+            }
+            if (wholeWord && compared < length) {
+                return -1;
+            }
+            i += compared;
+            node = child;
+        }
+        return node;
+    }
+
+    private int child(int node, char first) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = edgeChars[edgeStart[mid]];
+            if (label < first) {
+                low = mid + 1;
+            } else if (label > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasWordStartingWith(String key, String prefix) {
+        for (int from = 0; from >= 0 && from < key.length(); ) {
+            if (key.startsWith(prefix, from)) {
+                return true;
+            }
+            int space = key.indexOf(' ', from);
+            from = space < 0 ? -1 : space + 1;
+        }
+        return false;
+    }
+
+    // Both inputs are ascending suggestion indexes
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static Comparator<Integer> rankOrder(double[] weights) {
+        return Comparator.<Integer>comparingDouble(index -> weights[index]).reversed()
+                .thenComparing(Comparator.naturalOrder());
+    }
+
+    /**
+     * Lowercases, strips accents and collapses whitespace.
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(folded.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    public static <T> Builder<T> builder(int topN) {
+        return new Builder<>(topN);
+    }
+
+    public static final class Builder<T> {
+
+        private final int topN;
+        private final List<T> suggestions = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final Node root = new Node((char) 0);
+
+        private Builder(int topN) {
+            this.topN = topN;
+        }
+
+        /**
+         * Adds a suggestion reachable from every word in its text.
+         */
+        public Builder<T> add(String text, double weight, T suggestion) {
+            String key = fold(text);
+            if (key.isEmpty()) {
+                return this;
+            }
+            int index = suggestions.size();
+            suggestions.add(suggestion);
+            weights.add(weight);
+            keys.add(key);
+            for (String word : new LinkedHashSet<>(Arrays.asList(key.split(" ")))) {
+                insert(word, index);
+            }
+            return this;
+        }
+
+        private void insert(String word, int index) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), Node::new);
+            }
+            node.terminals.add(index);
+        }
+
+        public SuggestionTrie<T> build() {
+            double[] weightArray = weights.stream().mapToDouble(Double::doubleValue).toArray();
+            computeTop(root, rankOrder(weightArray));
+
+            // Breadth-first over merged edges keeps each node's children contiguous
+            List<Edge> order = new ArrayList<>();
+            order.add(new Edge("", root));
+            for (int i = 0; i < order.size(); i++) {
+                for (Node child : order.get(i).end().children.values()) {
+                    order.add(merge(child));
+                }
+            }
+
+            int nodes = order.size();
+            StringBuilder edgeChars = new StringBuilder();
+            int[] edgeStart = new int[nodes];
+            int[] edgeLength = new int[nodes];
+            int[] childStart = new int[nodes];
+            int[] childCount = new int[nodes];
+            int[] topStart = new int[nodes];
+            int[] topCount = new int[nodes];
+            int[] wordStart = new int[nodes];
+            int[] wordCount = new int[nodes];
+            int[] topSuggestions = new int[order.stream().mapToInt(edge -> edge.end().top.length).sum()];
+            int[] wordSuggestions = new int[order.stream().mapToInt(edge -> edge.end().terminals.size()).sum()];
+
+            int nextChild = 1;
+            int nextTop = 0;
+            int nextWord = 0;
+            for (int i = 0; i < nodes; i++) {
+                Edge edge = order.get(i);
+                Node end = edge.end();
+                edgeStart[i] = edgeChars.length();
+                edgeLength[i] = edge.label().length();
+                edgeChars.append(edge.label());
+                childStart[i] = nextChild;
+                childCount[i] = end.children.size();
+                nextChild += end.children.size();
+                topStart[i] = nextTop;
+                topCount[i] = end.top.length;
+                System.arraycopy(end.top, 0, topSuggestions, nextTop, end.top.length);
+                nextTop += end.top.length;
+                wordStart[i] = nextWord;
+                wordCount[i] = end.terminals.size();
+                for (int index : end.terminals) {
+                    wordSuggestions[nextWord++] = index;
+                }
+            }
+            char[] chars = new char[edgeChars.length()];
+            edgeChars.getChars(0, chars.length, chars, 0);
+            return new SuggestionTrie<>(List.copyOf(suggestions), weightArray, keys.toArray(new String[0]),
+                    chars, edgeStart, edgeLength, childStart, childCount, topStart, topCount, topSuggestions,
+                    wordStart, wordCount, wordSuggestions);
+        }
+
+        // Follows single-child nodes that end no word, so the chain becomes one edge
+        private static Edge merge(Node node) {
+            StringBuilder label = new StringBuilder().append(node.label);
+            Node end = node;
+            while (end.terminals.isEmpty() && end.children.size() == 1) {
+                end = end.children.values().iterator().next();
+                label.append(end.label);
+            }
+            return new Edge(label.toString(), end);
+        }
+
+        // Iterative post-order, so long words cannot overflow the stack
+        private void computeTop(Node root, Comparator<Integer> byRank) {
+            Deque<Node> pending = new ArrayDeque<>();
+            List<Node> postOrder = new ArrayList<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Node node = pending.pop();
+                postOrder.add(node);
+                node.children.values().forEach(pending::push);
+            }
+            for (int i = postOrder.size() - 1; i >= 0; i--) {
+                Node node = postOrder.get(i);
+                Set<Integer> candidates = new LinkedHashSet<>(node.terminals);
+                for (Node child : node.children.values()) {
+                    for (int index : child.top) {
+                        candidates.add(index);
+                    }
+                }
+                node.top = candidates.stream()
+                        .sorted(byRank)
+                        .limit(topN)
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+        }
+    }
+
+    private record Edge(String label, Node end) {
+    }
+
+    private static final class Node {
+        private final char label;
+        // TreeMap keeps children sorted by label for the binary search in the flattened form
+        private final Map<Character, Node> children = new TreeMap<>();
+        // Ascending suggestion indexes whose text contains the word ending here
+        private final List<Integer> terminals = new ArrayList<>(1);
+        private int[] top;
+
+        private Node(char label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.model.User;
+import lombok.Value;
+
+/**
+ * Immutable principal for an authenticated request. The same instance is
+ * shared through {@link TokenPrincipalCache} by every request carrying the
+ * token, so it holds only identity fields and never the managed entity;
+ * controllers that need the full user load it by id.
+ */
+@Value
+public class AuthenticatedUser {
+    Long id;
+    String name;
+    String email;
+    Boolean isAdmin;
+    
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getName(), user.getEmail(),
+                Boolean.TRUE.equals(user.getIsAdmin()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Issues and verifies self-contained HMAC-SHA256 tokens of the form
+ * {@code base64url(claims-json).base64url(signature)}. Verification is CPU only.
+ */
+@Component
+public class SignedTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ObjectMapper objectMapper;
+    private final SecureRandom random = new SecureRandom();
+
+    public SignedTokenCodec(@Value("${auth.token.secret:}") String secret,
+            @Value("${auth.token.mode:database}") String tokenMode, ObjectMapper objectMapper) {
+        this.key = new SecretKeySpec(resolveSecret(secret, "stateless".equalsIgnoreCase(tokenMode)), ALGORITHM);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Opaque database tokens are UUIDs, signed tokens always carry a '.' separator.
+     */
+    public boolean isSignedToken(String token) {
+        return token.indexOf('.') > 0;
+    }
+
+    public String issue(User user, Instant expiresAt) {
+        byte[] tokenId = new byte[16];
+        random.nextBytes(tokenId);
+
+        SignedTokenClaims claims = new SignedTokenClaims(
+                user.getId(),
+                user.getEmail(),
+                user.getName(),
+                Boolean.TRUE.equals(user.getIsAdmin()),
+                expiresAt.getEpochSecond(),
+                HexFormat.of().formatHex(tokenId));
+        try {
+            String payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return payload + "." + ENCODER.encodeToString(sign(payload));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to issue signed token", e);
+        }
+    }
+
+    /**
+     * @return the claims when the signature is valid and the token has not expired
+     */
+    public Optional<SignedTokenClaims> verify(String token) {
+        return decode(token).filter(claims -> claims.exp() > Instant.now().getEpochSecond());
+    }
+
+    /**
+     * Like {@link #verify(String)} but also accepts expired tokens, for revocation.
+     */
+    public Optional<SignedTokenClaims> decode(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0 || separator == token.length() - 1) {
+            return Optional.empty();
+        }
+        String payload = token.substring(0, separator);
+        try {
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            return Optional.of(objectMapper.readValue(DECODER.decode(payload), SignedTokenClaims.class));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITHM);
+        mac.init(key);
+        return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] resolveSecret(String secret, boolean statelessTokens) {
+        if (!StringUtils.hasText(secret)) {
+            // Stateless mode issues every token with this key; a per-boot one would log everyone out
+            // on restart and reject tokens issued by the other nodes
+            if (statelessTokens) {
+                throw new IllegalStateException("auth.token.secret is required when auth.token.mode=stateless");
+            }
+            // Database mode issues no signed tokens; without the shared secret it rejects any left from stateless mode
+            byte[] generated = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(generated);
+            return generated;
+        }
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("auth.token.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    public record SignedTokenClaims(Long uid, String email, String name, boolean adm, long exp, String jti) {
+
+        public AuthenticatedUser toPrincipal() {
+            return new AuthenticatedUser(uid, name, email, adm);
+        }
+
+        public Instant expiresAt() {
+            return Instant.ofEpochSecond(exp);
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.ecommerce.backend.security;
 
-import com.ecommerce.backend.model.User;
+import com.ecommerce.backend.logging.RequestTimings;
 import com.ecommerce.backend.service.AuthService;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.util.function.SingletonSupplier;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import jakarta.servlet.FilterChain;
@@ -16,13 +21,15 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Component
 public class TokenAuthenticationFilter extends OncePerRequestFilter {
     
+    private static final Logger log = LoggerFactory.getLogger(TokenAuthenticationFilter.class);
+    
     private final AuthService authService;
     
     public TokenAuthenticationFilter(AuthService authService) {
@@ -36,49 +43,60 @@ public class TokenAuthenticationFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain)
             throws ServletException, IOException {
         
+        String token = getTokenFromRequest(request);
+        
+        if (StringUtils.hasText(token)) {
+            // Defer the token lookup until an authorization rule or controller asks for
+            // the principal, so permitAll endpoints never pay for it
+            SecurityContextHolderStrategy strategy = SecurityContextHolder.getContextHolderStrategy();
+            Supplier<SecurityContext> previous = strategy.getDeferredContext();
+            strategy.setDeferredContext(SingletonSupplier.of(() -> {
+                long start = System.nanoTime();
+                try {
+                    return resolveContext(token, previous, strategy);
+                } finally {
+                    RequestTimings.recordAuth(request, System.nanoTime() - start);
+                }
+            }));
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+    
+    private SecurityContext resolveContext(
+            String token,
+            Supplier<SecurityContext> previous,
+            SecurityContextHolderStrategy strategy) {
+        
+        SecurityContext existing = previous.get();
+        if (existing.getAuthentication() != null) {
+            return existing;
+        }
+        
+        SecurityContext context = strategy.createEmptyContext();
+        
         try {
-            String token = getTokenFromRequest(request);
+            Optional<AuthenticatedUser> userOpt = authService.getUserFromToken(token);
             
-            if (StringUtils.hasText(token)) {
-                System.out.println("Processing token: " + token.substring(0, Math.min(token.length(), 10)) + "...");
-                Optional<User> userOpt = authService.getUserFromToken(token);
+            if (userOpt.isPresent()) {
+                AuthenticatedUser user = userOpt.get();
+                log.debug("Authenticated user id={} admin={}", user.getId(), user.getIsAdmin());
                 
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    System.out.println("User authenticated: " + user.getEmail() + ", isAdmin: " + user.getIsAdmin());
-                    
-                    // Set up authentication
-                    UsernamePasswordAuthenticationToken authentication;
-                    
-                    if (user.getIsAdmin()) {
-                        // For admin users, add ROLE_ADMIN authority
-                        authentication = new UsernamePasswordAuthenticationToken(
-                            user,
-                            null,
-                            List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
-                        );
-                        System.out.println("Admin role assigned to: " + user.getEmail());
-                    } else {
-                        // For regular users, add ROLE_USER authority
-                        authentication = new UsernamePasswordAuthenticationToken(
-                            user,
-                            null,
-                            List.of(new SimpleGrantedAuthority("ROLE_USER"))
-                        );
-                        System.out.println("User role assigned to: " + user.getEmail());
-                    }
-                    
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                } else {
-                    System.out.println("No user found for token");
-                }
+                // Admin users get ROLE_ADMIN, everyone else ROLE_USER
+                String role = Boolean.TRUE.equals(user.getIsAdmin()) ? "ROLE_ADMIN" : "ROLE_USER";
+                context.setAuthentication(new UsernamePasswordAuthenticationToken(
+                    user,
+                    null,
+                    List.of(new SimpleGrantedAuthority(role))
+                ));
+            } else {
+                log.debug("No user found for token");
             }
         } catch (Exception ex) {
-            System.err.println("Authentication error in filter: " + ex.getMessage());
-            ex.printStackTrace();
+            log.error("Authentication error in filter", ex);
         }
         
-        filterChain.doFilter(request, response);
+        return context;
     }
     
     private String getTokenFromRequest(HttpServletRequest request) {
@@ -0,0 +1,82 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.cache.BoundedCache;
+import com.ecommerce.backend.metrics.MetricsSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches token to principal resolution so authenticated requests skip the
+ * auth_tokens and users lookups. Entries never outlive the token itself.
+ * <p>
+ * Every eviction bumps a generation counter. A lookup reads the generation
+ * before it loads from the database and {@link #put} drops its result if an
+ * eviction happened in between, so a load that raced a logout or re-login
+ * cannot put the old principal back.
+ */
+@Component
+public class TokenPrincipalCache implements MetricsSource {
+
+    private final BoundedCache<String, CachedPrincipal> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder stalePutsDropped = new LongAdder();
+
+    public TokenPrincipalCache(
+            @Value("${auth.principal-cache.max-size:10000}") int maxSize,
+            @Value("${auth.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = new BoundedCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    public CachedPrincipal get(String token) {
+        return cache.getIfPresent(token);
+    }
+
+    /**
+     * Generation to pass to {@link #put}; read it before loading the principal.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    // Check and put under the same lock as eviction, so no eviction can slip in between
+    public synchronized void put(String token, CachedPrincipal principal, long loadedAtGeneration) {
+        if (generation.get() != loadedAtGeneration) {
+            stalePutsDropped.increment();
+            return;
+        }
+        cache.put(token, principal, Duration.between(LocalDateTime.now(), principal.expiresAt()));
+    }
+
+    public synchronized void evict(String token) {
+        generation.incrementAndGet();
+        cache.invalidate(token);
+    }
+
+    public synchronized void evictUser(Long userId) {
+        generation.incrementAndGet();
+        cache.invalidateIf(principal -> principal.user().getId().equals(userId));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "tokenPrincipalCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>(cache.stats());
+        metrics.put("stalePutsDropped", stalePutsDropped.sum());
+        return metrics;
+    }
+
+    public record CachedPrincipal(AuthenticatedUser user, Long tokenId, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,126 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.model.RevokedToken;
+import com.ecommerce.backend.repository.RevokedTokenRepository;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revoked signed tokens. A Bloom filter answers the common "not revoked" case
+ * in memory; only filter hits are confirmed against the revoked_tokens table.
+ * Other nodes pick up revocations on the next scheduled {@link #rebuild()}.
+ */
+@Component
+public class TokenRevocationList implements MetricsSource {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int expectedRevocations;
+
+    // Revocations made on this node since the last rebuild, replayed into a freshly built filter
+    private final Set<String> recentRevocations = ConcurrentHashMap.newKeySet();
+    private volatile BloomFilter filter;
+    private volatile int activeRevocations;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder revocations = new LongAdder();
+
+    public TokenRevocationList(
+            RevokedTokenRepository revokedTokenRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${auth.token.revocation.expected-revocations:100000}") int expectedRevocations) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedRevocations = expectedRevocations;
+    }
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!revokedTokenRepository.existsByTokenId(tokenId)) {
+            RevokedToken revokedToken = new RevokedToken();
+            revokedToken.setTokenId(tokenId);
+            revokedToken.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneOffset.UTC));
+            revokedTokenRepository.save(revokedToken);
+        }
+        recentRevocations.add(tokenId);
+        filter.add(tokenId);
+        revocations.increment();
+    }
+
+    public boolean isRevoked(String tokenId) {
+        checks.increment();
+        if (!filter.mightContain(tokenId)) {
+            return false;
+        }
+        filterHits.increment();
+        boolean revoked = revokedTokenRepository.existsByTokenId(tokenId);
+        if (!revoked) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    /**
+     * Drops expired revocations and rebuilds the filter from the table, so the
+     * filter shrinks as tokens expire and includes revocations from other nodes.
+     */
+    public void rebuild() {
+        Set<String> replayed = new HashSet<>(recentRevocations);
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+        List<String> tokenIds = transactionTemplate.execute(status -> {
+            revokedTokenRepository.deleteExpired(now);
+            return revokedTokenRepository.findActiveTokenIds(now);
+        });
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, tokenIds.size() * 2), FALSE_POSITIVE_RATE);
+        tokenIds.forEach(rebuilt::add);
+        filter = rebuilt;
+        activeRevocations = tokenIds.size();
+
+        recentRevocations.forEach(rebuilt::add);
+        recentRevocations.removeAll(replayed);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "tokenRevocationList";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        BloomFilter current = filter;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("activeRevocations", activeRevocations);
+        metrics.put("revocations", revocations.sum());
+        metrics.put("checks", checks.sum());
+        metrics.put("filterHits", filterHits.sum());
+        metrics.put("falsePositives", falsePositives.sum());
+        metrics.put("filterBits", current.bitCount());
+        metrics.put("filterHashes", current.hashCount());
+        return metrics;
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecommerce.backend.service;
 
+import com.ecommerce.backend.cache.BoundedCache;
+import com.ecommerce.backend.metrics.MetricsSource;
 import com.ecommerce.backend.model.ActivityLog;
 import com.ecommerce.backend.model.Admin;
 import com.ecommerce.backend.model.User;
@@ -11,11 +13,16 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
-public class AdminService {
+public class AdminService implements MetricsSource {
+    
+    // Admin rows are never deleted or re-keyed, so an email -> id mapping only changes on creation
+    private final BoundedCache<String, Long> adminIdsByEmail = new BoundedCache<>(1000, Duration.ofMinutes(30));
     
     @Autowired
     private AdminRepository adminRepository;
@@ -41,6 +48,22 @@ public class AdminService {
         return adminRepository.findByEmail(email);
     }
     
+    /**
+     * Resolves an admin id by email, hitting the database only on a cache miss.
+     */
+    public Optional<Long> getAdminIdByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        Long cached = adminIdsByEmail.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Long> adminId = adminRepository.findIdByEmail(email);
+        adminId.ifPresent(id -> adminIdsByEmail.put(email, id));
+        return adminId;
+    }
+    
     /**
      * Checks if any admin exists in the system
      * @return true if at least one admin exists, false otherwise
@@ -66,6 +89,7 @@ public class AdminService {
         
         admin.setPassword(passwordEncoder.encode(admin.getPassword()));
         Admin savedAdmin = adminRepository.save(admin);
+        adminIdsByEmail.invalidate(savedAdmin.getEmail());
         
         // Create a corresponding user record with admin privileges
         User adminUser = new User();
@@ -93,6 +117,7 @@ public class AdminService {
         
         admin.setPassword(passwordEncoder.encode(admin.getPassword()));
         Admin savedAdmin = adminRepository.save(admin);
+        adminIdsByEmail.invalidate(savedAdmin.getEmail());
         
         // Create a corresponding user record with admin privileges
         User adminUser = new User();
@@ -103,7 +128,7 @@ public class AdminService {
         userRepository.save(adminUser);
         
         // Log this activity
-        logAdminActivity(getAdminByEmail(actionBy).orElse(null), 
+        logAdminActivity(actionBy, 
                 "ADMIN_CREATED", 
                 "Created new admin account: " + admin.getEmail());
         
@@ -119,6 +144,16 @@ public class AdminService {
         return activityLogRepository.save(log);
     }
     
+    /**
+     * Logs an activity for the admin with the given email. The log is attached
+     * through an id reference, so no admins row is loaded. Unknown emails are
+     * not logged.
+     */
+    public void logAdminActivity(String adminEmail, String action, String details) {
+        getAdminIdByEmail(adminEmail).ifPresent(adminId ->
+                logAdminActivity(adminRepository.getReferenceById(adminId), action, details));
+    }
+    
     public List<ActivityLog> getActivityLogsByAdmin(Admin admin) {
         return activityLogRepository.findByAdmin(admin);
     }
@@ -126,4 +161,14 @@ public class AdminService {
     public List<ActivityLog> getAllActivityLogs() {
         return activityLogRepository.findAll();
     }
+    
+    @Override
+    public String getMetricsName() {
+        return "adminIdentityCache";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        return adminIdsByEmail.stats();
+    }
 }
\ No newline at end of file
@@ -7,30 +7,64 @@ import com.ecommerce.backend.model.AuthToken;
 import com.ecommerce.backend.model.User;
 import com.ecommerce.backend.repository.AuthTokenRepository;
 import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.security.AuthenticatedUser;
+import com.ecommerce.backend.security.PasswordHashingExecutor;
+import com.ecommerce.backend.security.SignedTokenCodec;
+import com.ecommerce.backend.security.SignedTokenCodec.SignedTokenClaims;
+import com.ecommerce.backend.security.TokenDigests;
+import com.ecommerce.backend.security.TokenPrincipalCache;
+import com.ecommerce.backend.security.TokenPrincipalCache.CachedPrincipal;
+import com.ecommerce.backend.security.TokenRevocationList;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class AuthService {
     
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+    
     private final UserRepository userRepository;
     private final AuthTokenRepository authTokenRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenPrincipalCache tokenPrincipalCache;
+    private final SignedTokenCodec signedTokenCodec;
+    private final TokenRevocationList tokenRevocationList;
+    private final TokenExpiryWriter tokenExpiryWriter;
+    private final boolean statelessTokens;
     
-    public AuthService(UserRepository userRepository, AuthTokenRepository authTokenRepository, BCryptPasswordEncoder passwordEncoder) {
+    public AuthService(UserRepository userRepository, AuthTokenRepository authTokenRepository,
+            PasswordHashingExecutor passwordHashingExecutor, TransactionTemplate transactionTemplate,
+            TokenPrincipalCache tokenPrincipalCache, SignedTokenCodec signedTokenCodec, TokenRevocationList tokenRevocationList,
+            TokenExpiryWriter tokenExpiryWriter, @Value("${auth.token.mode:database}") String tokenMode) {
         this.userRepository = userRepository;
         this.authTokenRepository = authTokenRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.tokenPrincipalCache = tokenPrincipalCache;
+        this.signedTokenCodec = signedTokenCodec;
+        this.tokenRevocationList = tokenRevocationList;
+        this.tokenExpiryWriter = tokenExpiryWriter;
+        this.statelessTokens = "stateless".equalsIgnoreCase(tokenMode);
     }
     
-    @Transactional
+    // Not transactional, and open-in-view is off, so each repository call returns its connection
+    // right away and a slow BCrypt never runs while one is held. Registration hashes before any query.
     public TokenResponse registerUser(RegisterRequest registerRequest) {
+        String passwordHash = passwordHashingExecutor.encode(registerRequest.getPassword());
+        
         // Check if user already exists
         if (userRepository.findByEmail(registerRequest.getEmail()).isPresent()) {
             throw new IllegalArgumentException("Email already in use");
@@ -40,52 +74,81 @@ public class AuthService {
         User user = new User();
         user.setName(registerRequest.getName());
         user.setEmail(registerRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+        user.setPassword(passwordHash);
         user.setIsAdmin(false);
         user.setCreatedAt(LocalDateTime.now());
         
-        User savedUser = userRepository.save(user);
-        
-        // Create and return auth token
-        return createTokenForUser(savedUser);
+        // Save the user and create its auth token in one transaction
+        return transactionTemplate.execute(status -> createTokenForUser(userRepository.save(user)));
     }
     
-    @Transactional
     public TokenResponse loginUser(LoginRequest loginRequest) {
         User user = userRepository.findByEmail(loginRequest.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Invalid email or password"));
         
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
-            throw new IllegalArgumentException("Invalid email or password");
+        return authenticate(user, loginRequest.getPassword(), "Invalid email or password");
+    }
+    
+    /**
+     * Admin sign-in: the password is verified once, against the admin user only.
+     */
+    public TokenResponse loginAdmin(LoginRequest loginRequest) {
+        User admin = userRepository.findByEmailAndIsAdmin(loginRequest.getEmail(), true)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid admin credentials"));
+        
+        return authenticate(admin, loginRequest.getPassword(), "Invalid admin credentials");
+    }
+    
+    private TokenResponse authenticate(User user, String password, String failureMessage) {
+        if (!passwordHashingExecutor.matches(password, user.getPassword())) {
+            throw new IllegalArgumentException(failureMessage);
         }
         
         // Create and return auth token
-        return createTokenForUser(user);
+        return transactionTemplate.execute(status -> createTokenForUser(user));
     }
     
-    @Transactional(readOnly = true)
-    public Optional<User> getUserFromToken(String token) {
-        System.out.println("Looking up user for token: " + token.substring(0, Math.min(token.length(), 10)) + "...");
+    /**
+     * Resolves the user behind a token. Signed tokens are accepted in either mode
+     * so switching auth.token.mode does not log everyone out.
+     */
+    public Optional<AuthenticatedUser> getUserFromToken(String token) {
+        if (signedTokenCodec.isSignedToken(token)) {
+            return signedTokenCodec.verify(token)
+                    .filter(claims -> !tokenRevocationList.isRevoked(claims.jti()))
+                    .map(SignedTokenClaims::toPrincipal);
+        }
         
+        CachedPrincipal cached = tokenPrincipalCache.get(token);
+        if (cached != null) {
+            return Optional.of(cached.user());
+        }
+        
+        // Read before the lookup: if the token is evicted meanwhile, the result is not cached
+        long generation = tokenPrincipalCache.generation();
         try {
-            Optional<AuthToken> authTokenOpt = authTokenRepository.findByTokenAndExpiresAtAfter(token, LocalDateTime.now());
+            Optional<AuthToken> authTokenOpt = authTokenRepository.findByTokenDigestAndExpiresAtAfter(
+                    TokenDigests.sha256Hex(token), LocalDateTime.now());
             
             if (authTokenOpt.isPresent()) {
                 AuthToken authToken = authTokenOpt.get();
                 User user = authToken.getUser();
                 
                 if (user != null) {
-                    System.out.println("Found user: " + user.getEmail() + " with isAdmin=" + user.getIsAdmin());
-                    return Optional.of(user);
+                    log.debug("Resolved token to user id={} admin={}", user.getId(), user.getIsAdmin());
+                    // Copy out the identity fields; the entity itself is never shared between requests
+                    AuthenticatedUser principal = AuthenticatedUser.of(user);
+                    tokenPrincipalCache.put(token, new CachedPrincipal(principal, authToken.getId(), authToken.getExpiresAt()),
+                            generation);
+                    return Optional.of(principal);
                 } else {
-                    System.out.println("Auth token exists but user is null");
+                    log.warn("Auth token id={} has no user", authToken.getId());
                 }
             } else {
-                System.out.println("No valid auth token found");
+                log.debug("No valid auth token found");
             }
         } catch (Exception e) {
-            System.err.println("Error getting user from token: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Error getting user from token", e);
         }
         
         return Optional.empty();
@@ -93,18 +156,31 @@ public class AuthService {
     
     @Transactional
     public void invalidateToken(String token) {
-        authTokenRepository.findByToken(token)
+        if (signedTokenCodec.isSignedToken(token)) {
+            signedTokenCodec.decode(token)
+                    .ifPresent(claims -> tokenRevocationList.revoke(claims.jti(), claims.expiresAt()));
+            return;
+        }
+        
+        authTokenRepository.findByTokenDigest(TokenDigests.sha256Hex(token))
                 .ifPresent(authTokenRepository::delete);
+        evictAroundCommit(() -> tokenPrincipalCache.evict(token));
     }
     
     private TokenResponse createTokenForUser(User user) {
+        if (statelessTokens) {
+            return createSignedTokenForUser(user);
+        }
+        
         // Delete any existing tokens for this user
         authTokenRepository.deleteAllByUser(user);
+        evictAroundCommit(() -> tokenPrincipalCache.evictUser(user.getId()));
         
-        // Create new token
+        // Create new token; only its digest is persisted
+        String token = UUID.randomUUID().toString();
         AuthToken authToken = new AuthToken();
         authToken.setUser(user);
-        authToken.setToken(UUID.randomUUID().toString());
+        authToken.setTokenDigest(TokenDigests.sha256Hex(token));
         authToken.setCreatedAt(LocalDateTime.now());
         authToken.setExpiresAt(LocalDateTime.now().plusDays(7)); // Token valid for 7 days
         
@@ -116,36 +192,69 @@ public class AuthService {
         response.setName(user.getName());
         response.setEmail(user.getEmail());
         response.setIsAdmin(user.getIsAdmin());
-        response.setToken(savedToken.getToken());
+        response.setToken(token);
         response.setExpiresAt(savedToken.getExpiresAt());
         
         return response;
     }
     
-    @Transactional(readOnly = true)
-    public Optional<User> getCurrentUser(String token) {
-        return getUserFromToken(token);
+    private TokenResponse createSignedTokenForUser(User user) {
+        // Signed tokens are never stored, so earlier sessions stay valid until they expire or log out
+        LocalDateTime expiresAt = LocalDateTime.now().plusDays(7);
+        
+        TokenResponse response = new TokenResponse();
+        response.setUserId(user.getId());
+        response.setName(user.getName());
+        response.setEmail(user.getEmail());
+        response.setIsAdmin(user.getIsAdmin());
+        response.setToken(signedTokenCodec.issue(user, expiresAt.atZone(ZoneId.systemDefault()).toInstant()));
+        response.setExpiresAt(expiresAt);
+        
+        return response;
     }
     
-    @Transactional
-    public void refreshToken(String token) {
-        authTokenRepository.findByToken(token)
-                .ifPresent(authToken -> {
-                    authToken.setExpiresAt(LocalDateTime.now().plusDays(7));
-                    authTokenRepository.save(authToken);
-                });
+    public Optional<AuthenticatedUser> getCurrentUser(String token) {
+        return getUserFromToken(token);
     }
     
-    @Transactional
-    public boolean isValidAdminCredentials(String email, String password) {
-        return userRepository.findByEmailAndIsAdmin(email, true)
-                .map(admin -> passwordEncoder.matches(password, admin.getPassword()))
-                .orElse(false);
+    /**
+     * Slides the token's expiry. Most calls are read-only: the write is only
+     * queued once the expiry has moved past the configured threshold.
+     */
+    public void refreshToken(String token) {
+        if (signedTokenCodec.isSignedToken(token)) {
+            // Expiry is part of the signature; signed tokens cannot be extended in place
+            return;
+        }
+        
+        LocalDateTime newExpiry = LocalDateTime.now().plusDays(7);
+        CachedPrincipal cached = tokenPrincipalCache.get(token);
+        if (cached != null) {
+            tokenExpiryWriter.extend(cached.tokenId(), cached.expiresAt(), newExpiry);
+            return;
+        }
+        
+        authTokenRepository.findByTokenDigestAndExpiresAtAfter(TokenDigests.sha256Hex(token), LocalDateTime.now())
+                .ifPresent(authToken -> tokenExpiryWriter.extend(authToken.getId(), authToken.getExpiresAt(), newExpiry));
     }
     
-    // Additional method for scheduled tasks if needed
-    @Transactional
-    public void cleanupExpiredTokens() {
-        authTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+    /**
+     * Evicts now and again once the surrounding transaction commits. A lookup
+     * can still read the old row until the commit; each eviction bumps the
+     * cache generation, so such a lookup cannot put its result back (see
+     * {@link TokenPrincipalCache}), and one that put before the commit is
+     * removed by the second eviction.
+     */
+    private void evictAroundCommit(Runnable eviction) {
+        eviction.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eviction.run();
+            }
+        });
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.ecommerce.backend.service;
 
 
+import com.ecommerce.backend.event.CategoryChangedEvent;
 import com.ecommerce.backend.model.Category;
 import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.CategoryRepository.CategoriesVersion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,10 +21,17 @@ public class CategoryService {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
     
+    public CategoriesVersion getCategoriesVersion() {
+        return categoryRepository.findVersion();
+    }
+    
     public Optional<Category> getCategoryById(Long id) {
         return categoryRepository.findById(id);
     }
@@ -36,11 +46,11 @@ public class CategoryService {
         }
         
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "CATEGORY_CREATED", 
-                "Created category: " + category.getName()));
+        adminService.logAdminActivity(adminEmail, "CATEGORY_CREATED", 
+                "Created category: " + category.getName());
         
         return savedCategory;
     }
@@ -57,11 +67,11 @@ public class CategoryService {
         }
         
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "CATEGORY_UPDATED", 
-                "Updated category: " + category.getName()));
+        adminService.logAdminActivity(adminEmail, "CATEGORY_UPDATED", 
+                "Updated category: " + category.getName());
         
         return savedCategory;
     }
@@ -69,11 +79,11 @@ public class CategoryService {
     public void deleteCategory(Long id, String adminEmail) {
         categoryRepository.findById(id).ifPresent(category -> {
             categoryRepository.deleteById(id);
+            eventPublisher.publishEvent(new CategoryChangedEvent(id));
             
             // Log this activity
-            adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-                adminService.logAdminActivity(admin, "CATEGORY_DELETED", 
-                    "Deleted category: " + category.getName()));
+            adminService.logAdminActivity(adminEmail, "CATEGORY_DELETED", 
+                    "Deleted category: " + category.getName());
         });
     }
 }
\ No newline at end of file
@@ -1,21 +1,35 @@
 package com.ecommerce.backend.service;
 
+import com.ecommerce.backend.dto.OrderItemDTO;
+import com.ecommerce.backend.event.OrderPlacedEvent;
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.inventory.InventoryLedger;
 import com.ecommerce.backend.model.Order;
 import com.ecommerce.backend.model.OrderItem;
 import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.pagination.KeysetCursor;
 import com.ecommerce.backend.repository.OrderItemRepository;
 import com.ecommerce.backend.repository.OrderRepository;
 import com.ecommerce.backend.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -32,16 +46,44 @@ public class OrderService {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
     
     public Page<Order> getAllOrders(Pageable pageable) {
-        return orderRepository.findAll(pageable);
+        return withItems(orderRepository.findAll(pageable));
+    }
+    
+    /**
+     * Keyset slice, newest first, optionally filtered by status.
+     * Returns up to limit rows following the cursor; a null cursor starts at the newest order.
+     */
+    public List<Order> getOrdersAfter(Order.OrderStatus status, KeysetCursor cursor, int limit) {
+        List<Order> rows;
+        if (status == null) {
+            rows = cursor == null
+                    ? orderRepository.findKeysetFirst(Limit.of(limit))
+                    : orderRepository.findKeysetAfter(cursor.sortKey(), cursor.id(), Limit.of(limit));
+        } else {
+            rows = cursor == null
+                    ? orderRepository.findKeysetFirstByStatus(status, Limit.of(limit))
+                    : orderRepository.findKeysetAfterByStatus(status, cursor.sortKey(), cursor.id(), Limit.of(limit));
+        }
+        return withItems(rows);
     }
     
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        return orderRepository.findWithItemsById(id);
+    }
+    
+    public Optional<LocalDateTime> getOrderVersionByTrackingId(String trackingId) {
+        return orderRepository.findVersionByTrackingId(trackingId);
     }
     
     public Optional<Order> getOrderByTrackingId(String trackingId) {
@@ -58,7 +100,7 @@ public class OrderService {
     }
     
     public Page<Order> getOrdersByStatus(Order.OrderStatus status, Pageable pageable) {
-        return orderRepository.findByStatus(status, pageable);
+        return withItems(orderRepository.findByStatus(status, pageable));
     }
     
     public List<Order> getOrdersByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
@@ -69,33 +111,130 @@ public class OrderService {
         return orderRepository.searchOrders(keyword);
     }
     
+    /**
+     * Prices the requested lines and rejects those already short of stock. Runs in
+     * its own read-only transaction so the connection is back in the pool before
+     * {@link #createOrder} starts; the authoritative stock check is still the one
+     * made when the order is placed.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderItem> prepareItems(List<OrderItemDTO> requestedItems) {
+        Map<Long, Product> products = productRepository.findByIdIn(requestedItems.stream()
+                        .map(OrderItemDTO::getProductId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        List<OrderItem> orderItems = new ArrayList<>(requestedItems.size());
+        for (OrderItemDTO itemDTO : requestedItems) {
+            Product product = products.get(itemDTO.getProductId());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + itemDTO.getProductId());
+            }
+            if (inventoryLedger.available(product.getId(), product.getStock()) < itemDTO.getQuantity()) {
+                throw new InsufficientStockException("Not enough stock for product: " + product.getName());
+            }
+            
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(itemDTO.getQuantity());
+            item.setPrice(product.getPrice());
+            orderItems.add(item);
+        }
+        return orderItems;
+    }
+    
     @Transactional
     public Order createOrder(Order order, List<OrderItem> orderItems) {
-        // Generate a unique tracking ID
-        String trackingId = generateTrackingId();
-        order.setTrackingId(trackingId);
+        return placeOrder(order, orderItems);
+    }
+    
+    /**
+     * Places an order inside the caller's transaction; used directly by group commit.
+     * A short line throws {@link InsufficientStockException} only after giving back the
+     * stock this order already took, so the enclosing transaction stays usable for the
+     * other orders in the group.
+     */
+    public Order placeOrder(Order order, List<OrderItem> orderItems) {
+        // Orders accepted asynchronously already carry the tracking id they were acknowledged with
+        if (order.getTrackingId() == null) {
+            order.setTrackingId(generateTrackingId());
+        }
         
-        // Save the order first
+        // Ids come from a pooled generator, so the order and its items go out as batched inserts at flush.
+        // Assigned before any product row is locked: refilling the pool takes a second connection, and
+        // asking for one while other checkouts wait on that lock with theirs can exhaust the pool.
         Order savedOrder = orderRepository.save(order);
+        orderItems.forEach(item -> item.setOrder(savedOrder));
+        orderItemRepository.saveAll(orderItems);
         
-        // Process each order item
-        orderItems.forEach(item -> {
-            item.setOrder(savedOrder);
-            
-            // Reduce stock
-            Product product = item.getProduct();
-            product.setStock(product.getStock() - item.getQuantity());
-            productRepository.save(product);
-            
-            orderItemRepository.save(item);
-        });
+        try {
+            reserveStock(orderItems, order.getTrackingId());
+        } catch (InsufficientStockException e) {
+            // Nothing is flushed yet; this drops the order from the rest of a group commit
+            orderItemRepository.deleteAll(orderItems);
+            orderRepository.delete(savedOrder);
+            throw e;
+        }
+        
+        orderItems.forEach(item -> eventPublisher.publishEvent(new ProductChangedEvent(item.getProduct().getId(), true)));
+        eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId(), orderItems.stream()
+                .map(item -> item.getProduct().getId())
+                .distinct()
+                .collect(Collectors.toList())));
         
         return savedOrder;
     }
     
+    private Page<Order> withItems(Page<Order> orders) {
+        return new PageImpl<>(withItems(orders.getContent()), orders.getPageable(), orders.getTotalElements());
+    }
+    
+    // Re-reads a page of orders with their lines and products in one query, keeping the page order
+    private List<Order> withItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+        Map<Long, Order> loaded = orderRepository.findWithItemsByIdIn(orders.stream()
+                        .map(Order::getId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return orders.stream()
+                .map(order -> loaded.get(order.getId()))
+                .collect(Collectors.toList());
+    }
+    
+    public String generateTrackingId() {
+        // Generate a random tracking ID (you can customize this logic)
+        return "TRK" + UUID.randomUUID().toString().substring(0, 12).toUpperCase();
+    }
+    
+    // Reduce stock with a conditional update per line. Lines go in product id order so
+    // concurrent orders lock rows in the same order. In ledger mode the lines are reserved
+    // in memory and journaled instead of touching products.
+    private void reserveStock(List<OrderItem> orderItems, String trackingId) {
+        List<OrderItem> lines = orderItems.stream()
+                .sorted(Comparator.comparing(item -> item.getProduct().getId()))
+                .collect(Collectors.toList());
+        if (inventoryLedger.isEnabled()) {
+            inventoryLedger.reserve(lines, trackingId);
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderItem> taken = new ArrayList<>(lines.size());
+        for (OrderItem item : lines) {
+            Product product = item.getProduct();
+            if (productRepository.decrementStock(product.getId(), item.getQuantity(), now) == 0) {
+                taken.forEach(line -> productRepository.adjustStock(line.getProduct().getId(), line.getQuantity(), now));
+                throw new InsufficientStockException("Not enough stock for product: " + product.getName());
+            }
+            taken.add(item);
+        }
+    }
+    
     @Transactional
     public Order updateOrderStatus(Long id, Order.OrderStatus status, String adminEmail) {
-        Order order = orderRepository.findById(id)
+        Order order = orderRepository.findWithItemsById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
         
         Order.OrderStatus oldStatus = order.getStatus();
@@ -103,16 +242,10 @@ public class OrderService {
         Order updatedOrder = orderRepository.save(order);
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "ORDER_STATUS_UPDATED", 
+        adminService.logAdminActivity(adminEmail, "ORDER_STATUS_UPDATED", 
                 "Updated order status from " + oldStatus + " to " + status + 
-                " for order #" + order.getTrackingId()));
+                " for order #" + order.getTrackingId());
         
         return updatedOrder;
     }
-    
-    private String generateTrackingId() {
-        // Generate a random tracking ID (you can customize this logic)
-        return "TRK" + UUID.randomUUID().toString().substring(0, 12).toUpperCase();
-    }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.cache.ProductCache;
+import com.ecommerce.backend.dto.CursorPage;
+import com.ecommerce.backend.dto.ProductBatchResponse;
+import com.ecommerce.backend.dto.ProductDTO;
+import com.ecommerce.backend.dto.ProductFilterResponse;
+import com.ecommerce.backend.dto.ProductImageDTO;
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.model.ProductImage;
+import com.ecommerce.backend.pagination.KeysetCursor;
+import com.ecommerce.backend.repository.ProductImageRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.recommendation.CoPurchaseEngine;
+import com.ecommerce.backend.repository.ProductRepository.ProductVersion;
+import com.ecommerce.backend.search.FacetEngine;
+import com.ecommerce.backend.search.FacetEngine.FacetQuery;
+import com.ecommerce.backend.search.FacetEngine.FacetResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the product catalog. Listing pages are assembled in a fixed
+ * number of queries: the count, the page itself with its categories fetched,
+ * and a single batched image lookup for every product on the page. Single
+ * products are read through {@link ProductCache}.
+ */
+@Service
+public class ProductCatalogService {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductImageRepository productImageRepository;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private FacetEngine facetEngine;
+    
+    @Autowired
+    private CoPurchaseEngine coPurchaseEngine;
+    
+    @Value("${catalog.batch.max-ids:100}")
+    private int maxBatchIds;
+    
+    public Optional<ProductDTO> getProduct(Long id) {
+        return Optional.ofNullable(productCache.get(id, productId -> productRepository.findDetailedById(productId)
+                .map(this::toDTO)
+                .orElse(null)));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> getProducts(Pageable pageable) {
+        return toDTOPage(productService.getAllProducts(pageable));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> getProductsByCategory(Category category, Pageable pageable) {
+        return toDTOPage(productService.getProductsByCategory(category, pageable));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<ProductDTO> searchProducts(String keyword, Pageable pageable) {
+        return toDTOPage(productService.searchProducts(keyword, pageable));
+    }
+    
+    /**
+     * Resolves many products at once for cart and checkout. Ids already in the
+     * product cache are served from it; the rest load with one IN query and one
+     * batched image fetch. Results keep request order; unknown ids are reported.
+     */
+    @Transactional(readOnly = true)
+    public ProductBatchResponse getProductsByIds(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " product ids per request");
+        }
+        
+        Map<Long, ProductDTO> found = new HashMap<>();
+        List<Long> uncached = new ArrayList<>();
+        for (Long id : requested) {
+            ProductDTO cached = productCache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            for (ProductDTO product : toDTOs(productRepository.findByIdIn(uncached))) {
+                productCache.put(product);
+                found.put(product.getId(), product);
+            }
+        }
+        
+        ProductBatchResponse response = new ProductBatchResponse();
+        for (Long id : requested) {
+            ProductDTO product = found.get(id);
+            if (product != null) {
+                response.getProducts().add(product);
+            } else {
+                response.getMissingIds().add(id);
+            }
+        }
+        return response;
+    }
+    
+    /**
+     * Combined filter with facet counts. Matching ids come from the in-memory
+     * facet columns; only the products on the requested page are loaded.
+     */
+    @Transactional(readOnly = true)
+    public ProductFilterResponse filterProducts(FacetQuery query, Pageable pageable) {
+        if (pageable.getPageSize() > maxBatchIds) {
+            throw new IllegalArgumentException("Page size must be at most " + maxBatchIds);
+        }
+        FacetResult result = facetEngine.filter(query, pageable);
+        List<ProductDTO> products = result.productIds().isEmpty()
+                ? new ArrayList<>()
+                : getProductsByIds(result.productIds()).getProducts();
+        
+        return new ProductFilterResponse(
+                new PageImpl<>(products, pageable, result.total()),
+                result.categories(),
+                result.priceBuckets(),
+                result.inStockCount());
+    }
+    
+    /**
+     * Products most often bought together with the given one, topped up with
+     * products from its category when order history is thin. Ids come from
+     * memory; the DTOs go through the product cache and batch path.
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<ProductDTO>> getRelatedProducts(Long id, int limit) {
+        Optional<ProductDTO> product = getProduct(id);
+        if (product.isEmpty()) {
+            return Optional.empty();
+        }
+        int capped = Math.max(0, Math.min(limit, coPurchaseEngine.getTopK()));
+        
+        List<Long> relatedIds = coPurchaseEngine.neighbours(id, capped);
+        Long categoryId = product.get().getCategoryId();
+        if (relatedIds.size() < capped && categoryId != null) {
+            Set<Long> excluded = new HashSet<>(relatedIds);
+            excluded.add(id);
+            relatedIds.addAll(facetEngine.productIdsInCategory(categoryId, capped - relatedIds.size(), excluded));
+        }
+        if (relatedIds.isEmpty()) {
+            return Optional.of(new ArrayList<>());
+        }
+        return Optional.of(getProductsByIds(relatedIds).getProducts());
+    }
+    
+    /**
+     * Cheap validator lookup for conditional GETs: two timestamps, no entity graph.
+     */
+    public Optional<ProductVersion> getProductVersion(Long id) {
+        return productRepository.findVersionById(id);
+    }
+    
+    /**
+     * Keyset-paginated listing, optionally within a category. Fetches one extra
+     * row to tell whether another slice follows.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> getProductsAfter(Category category, String cursor, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        List<Product> rows = productService.getProductsAfter(category, KeysetCursor.decode(cursor), size + 1);
+        return CursorPage.of(rows, size, product -> new KeysetCursor(product.getCreatedAt(), product.getId()),
+                this::toDTOs);
+    }
+    
+    /**
+     * Converts a product returned by an admin write. The entity is detached by
+     * then, so it is read again with its category and images.
+     */
+    public ProductDTO toDTO(Product product) {
+        Product detailed = productRepository.findDetailedById(product.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Product not found"));
+        return toDTO(detailed, detailed.getImages());
+    }
+    
+    private Page<ProductDTO> toDTOPage(Page<Product> products) {
+        return new PageImpl<>(toDTOs(products.getContent()), products.getPageable(), products.getTotalElements());
+    }
+    
+    // Images for all the given products are loaded with a single IN query
+    private List<ProductDTO> toDTOs(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        List<Long> productIds = products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<ProductImage>> imagesByProduct = productImageRepository.findByProductIds(productIds).stream()
+                .collect(Collectors.groupingBy(image -> image.getProduct().getId()));
+        
+        return products.stream()
+                .map(product -> toDTO(product, imagesByProduct.getOrDefault(product.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
+    
+    private ProductDTO toDTO(Product product, List<ProductImage> images) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setDescription(product.getDescription());
+        dto.setPrice(product.getPrice());
+        dto.setStock(productService.getAvailableStock(product));
+        dto.setImageUrl(product.getImageUrl());
+        
+        if (product.getCategory() != null) {
+            dto.setCategoryId(product.getCategory().getId());
+            dto.setCategoryName(product.getCategory().getName());
+        }
+        
+        dto.setCreatedAt(product.getCreatedAt());
+        dto.setUpdatedAt(product.getUpdatedAt());
+        
+        // Include product images
+        List<ProductImageDTO> imageDTOs = images.stream()
+                .map(image -> {
+                    ProductImageDTO imageDTO = new ProductImageDTO();
+                    imageDTO.setId(image.getId());
+                    imageDTO.setProductId(product.getId());
+                    imageDTO.setImageUrl(image.getImageUrl());
+                    imageDTO.setIsMain(image.getIsMain());
+                    return imageDTO;
+                })
+                .collect(Collectors.toList());
+        dto.setImages(imageDTOs);
+        
+        return dto;
+    }
+}
@@ -1,19 +1,33 @@
 package com.ecommerce.backend.service;
 
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.exception.StockConflictException;
+import com.ecommerce.backend.inventory.InventoryLedger;
 import com.ecommerce.backend.model.Category;
 import com.ecommerce.backend.model.Product;
 import com.ecommerce.backend.model.ProductImage;
+import com.ecommerce.backend.pagination.KeysetCursor;
 import com.ecommerce.backend.repository.ProductImageRepository;
 import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.search.SearchEngine;
+import com.ecommerce.backend.search.SearchEngine.SearchHits;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
@@ -27,6 +41,15 @@ public class ProductService {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private SearchEngine searchEngine;
+    
+    @Autowired
+    private InventoryLedger inventoryLedger;
+    
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
@@ -35,11 +58,41 @@ public class ProductService {
         return productRepository.findAll(pageable);
     }
     
-public Page<Product> searchProducts(String keyword, Pageable pageable) {
-    return productRepository.searchByKeywordPaged(keyword, pageable);
-}
+    /**
+     * Ranked search through the {@link SearchEngine}; falls back to the LIKE
+     * query while the index is not ready or the keyword has no searchable terms.
+     */
+    public Page<Product> searchProducts(String keyword, Pageable pageable) {
+        SearchHits hits = searchEngine.isReady() ? searchEngine.search(keyword, pageable) : null;
+        if (hits == null) {
+            return productRepository.searchByKeywordPaged(keyword, pageable);
+        }
+        
+        Map<Long, Product> productsById = productRepository.findByIdIn(hits.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ranked = hits.productIds().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ranked, pageable, hits.total());
+    }
 
 
+    /**
+     * Keyset slice in (createdAt, id) order, optionally within a category.
+     * Returns up to limit rows following the cursor; a null cursor starts at the beginning.
+     */
+    public List<Product> getProductsAfter(Category category, KeysetCursor cursor, int limit) {
+        if (category == null) {
+            return cursor == null
+                    ? productRepository.findKeysetFirst(Limit.of(limit))
+                    : productRepository.findKeysetAfter(cursor.sortKey(), cursor.id(), Limit.of(limit));
+        }
+        return cursor == null
+                ? productRepository.findKeysetFirstByCategory(category, Limit.of(limit))
+                : productRepository.findKeysetAfterByCategory(category, cursor.sortKey(), cursor.id(), Limit.of(limit));
+    }
+    
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
@@ -67,57 +120,96 @@ public Page<Product> searchProducts(String keyword, Pageable pageable) {
     @Transactional
     public Product createProduct(Product product, String adminEmail) {
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId()));
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "PRODUCT_CREATED", 
-                "Created product: " + product.getName()));
+        adminService.logAdminActivity(adminEmail, "PRODUCT_CREATED", 
+                "Created product: " + product.getName());
         
         return savedProduct;
     }
     
+    /**
+     * Saves the product's details. Stock is set only when it differs from
+     * {@code expectedStock}, the value the admin started from, and only if
+     * that is still current; without it the stock is overwritten.
+     */
     @Transactional
-    public Product updateProduct(Product product, String adminEmail) {
+    public Product updateProduct(Product product, Integer expectedStock, String adminEmail) {
         if (!productRepository.existsById(product.getId())) {
             throw new IllegalArgumentException("Product not found");
         }
         
         Product savedProduct = productRepository.save(product);
+        if (!Objects.equals(expectedStock, product.getStock())) {
+            applyStock(savedProduct.getId(), expectedStock, product.getStock());
+        }
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId()));
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "PRODUCT_UPDATED", 
-                "Updated product: " + product.getName()));
+        adminService.logAdminActivity(adminEmail, "PRODUCT_UPDATED", 
+                "Updated product: " + product.getName());
         
         return savedProduct;
     }
     
     @Transactional
-    public Product updateProductStock(Long id, Integer stock, String adminEmail) {
+    public Product updateProductStock(Long id, Integer expectedStock, Integer stock, String adminEmail) {
         return productRepository.findById(id)
                 .map(product -> {
+                    applyStock(id, expectedStock, stock);
                     product.setStock(stock);
-                    Product savedProduct = productRepository.save(product);
+                    eventPublisher.publishEvent(new ProductChangedEvent(id));
                     
                     // Log this activity
-                    adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-                        adminService.logAdminActivity(admin, "PRODUCT_STOCK_UPDATED", 
-                            "Updated stock for product: " + product.getName() + " to " + stock));
+                    adminService.logAdminActivity(adminEmail, "PRODUCT_STOCK_UPDATED", 
+                            "Updated stock for product: " + product.getName() + " to " + stock);
                     
-                    return savedProduct;
+                    return product;
                 })
                 .orElseThrow(() -> new IllegalArgumentException("Product not found"));
     }
     
+    /**
+     * Stock a checkout can currently take: the inventory ledger counter in
+     * ledger mode, otherwise the column value already on the entity.
+     */
+    public int getAvailableStock(Product product) {
+        return inventoryLedger.available(product.getId(), product.getStock());
+    }
+    
+    // Ledger reservations reach updatedAt only when flushed, so validators fold this in
+    public LocalDateTime getLastStockMovementAt(Long id) {
+        return inventoryLedger.lastMovementAt(id);
+    }
+    
+    // Product.stock is not written by entity saves; admin stock changes go through here
+    private void applyStock(Long id, Integer expectedStock, Integer stock) {
+        if (stock == null) {
+            return;
+        }
+        boolean applied;
+        if (inventoryLedger.isEnabled()) {
+            applied = inventoryLedger.adjustTo(id, expectedStock, stock);
+        } else if (expectedStock == null) {
+            applied = productRepository.setStock(id, stock, LocalDateTime.now()) > 0;
+        } else {
+            applied = productRepository.compareAndSetStock(id, expectedStock, stock, LocalDateTime.now()) > 0;
+        }
+        if (!applied) {
+            throw new StockConflictException("Stock has changed since it was loaded; reload and try again");
+        }
+    }
+    
     @Transactional
     public void deleteProduct(Long id, String adminEmail) {
         productRepository.findById(id).ifPresent(product -> {
             productRepository.deleteById(id);
+            eventPublisher.publishEvent(new ProductChangedEvent(id));
             
             // Log this activity
-            adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-                adminService.logAdminActivity(admin, "PRODUCT_DELETED", 
-                    "Deleted product: " + product.getName()));
+            adminService.logAdminActivity(adminEmail, "PRODUCT_DELETED", 
+                    "Deleted product: " + product.getName());
         });
     }
     
@@ -136,11 +228,12 @@ public Page<Product> searchProducts(String keyword, Pageable pageable) {
         }
         
         ProductImage savedImage = productImageRepository.save(image);
+        touch(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "PRODUCT_IMAGE_ADDED", 
-                "Added image for product: " + product.getName()));
+        adminService.logAdminActivity(adminEmail, "PRODUCT_IMAGE_ADDED", 
+                "Added image for product: " + product.getName());
         
         return savedImage;
     }
@@ -150,11 +243,12 @@ public Page<Product> searchProducts(String keyword, Pageable pageable) {
         productImageRepository.findById(imageId).ifPresent(image -> {
             String productName = image.getProduct().getName();
             productImageRepository.deleteById(imageId);
+            touch(image.getProduct());
+            eventPublisher.publishEvent(new ProductChangedEvent(image.getProduct().getId()));
             
             // Log this activity
-            adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-                adminService.logAdminActivity(admin, "PRODUCT_IMAGE_DELETED", 
-                    "Deleted image for product: " + productName));
+            adminService.logAdminActivity(adminEmail, "PRODUCT_IMAGE_DELETED", 
+                    "Deleted image for product: " + productName);
         });
     }
     
@@ -174,10 +268,16 @@ public Page<Product> searchProducts(String keyword, Pageable pageable) {
         // Set the new main image
         newMainImage.setIsMain(true);
         productImageRepository.save(newMainImage);
+        touch(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
         
         // Log this activity
-        adminService.getAdminByEmail(adminEmail).ifPresent(admin -> 
-            adminService.logAdminActivity(admin, "PRODUCT_MAIN_IMAGE_UPDATED", 
-                "Set main image for product: " + product.getName()));
+        adminService.logAdminActivity(adminEmail, "PRODUCT_MAIN_IMAGE_UPDATED", 
+                "Set main image for product: " + product.getName());
     }
-}
\ No newline at end of file
+    
+    // Image changes alter the product as served, so they move its updatedAt (and its ETag) too
+    private void touch(Product product) {
+        product.setUpdatedAt(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.cache.BoundedCache;
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.repository.AuthTokenRepository;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces sliding-expiry writes for auth tokens. A refresh is only queued
+ * once the new expiry has moved past the threshold, and queued extensions are
+ * written by {@link #flush()} as one multi-row UPDATE per batch.
+ */
+@Service
+public class TokenExpiryWriter implements MetricsSource {
+    
+    private static final int MAX_IDS_PER_UPDATE = 500;
+    
+    private final AuthTokenRepository authTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration persistThreshold;
+    
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    // Expiry last written per token, so refreshes after a flush compare against it
+    private final BoundedCache<Long, LocalDateTime> lastWritten;
+    
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    
+    public TokenExpiryWriter(
+            AuthTokenRepository authTokenRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${auth.token.refresh.persist-threshold-minutes:60}") long persistThresholdMinutes) {
+        this.authTokenRepository = authTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.persistThreshold = Duration.ofMinutes(persistThresholdMinutes);
+        this.lastWritten = new BoundedCache<>(100_000, persistThreshold);
+    }
+    
+    /**
+     * @param persistedExpiry the expiry currently stored for the token
+     * @param newExpiry the sliding expiry the caller wants
+     */
+    public void extend(Long tokenId, LocalDateTime persistedExpiry, LocalDateTime newExpiry) {
+        refreshes.increment();
+        
+        LocalDateTime written = lastWritten.getIfPresent(tokenId);
+        LocalDateTime current = written != null && written.isAfter(persistedExpiry) ? written : persistedExpiry;
+        if (Duration.between(current, newExpiry).compareTo(persistThreshold) < 0) {
+            coalesced.increment();
+            return;
+        }
+        
+        pending.merge(tokenId, newExpiry, (a, b) -> a.isAfter(b) ? a : b);
+    }
+    
+    /**
+     * Writes all queued extensions. Each batch gets the latest requested expiry,
+     * so a session may outlive its own request by at most one flush interval.
+     */
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        
+        List<Long> ids = new ArrayList<>();
+        LocalDateTime expiresAt = null;
+        for (Long id : new ArrayList<>(pending.keySet())) {
+            LocalDateTime requested = pending.remove(id);
+            if (requested == null) {
+                continue;
+            }
+            ids.add(id);
+            if (expiresAt == null || requested.isAfter(expiresAt)) {
+                expiresAt = requested;
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime batchExpiry = expiresAt;
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_UPDATE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_UPDATE));
+            Integer updated = transactionTemplate.execute(status ->
+                    authTokenRepository.extendExpiry(batch, batchExpiry));
+            flushedRows.add(updated);
+            flushes.increment();
+        }
+        ids.forEach(id -> lastWritten.put(id, batchExpiry));
+    }
+    
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "tokenExpiryWriter";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("refreshes", refreshes.sum());
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("pending", pending.size());
+        metrics.put("flushes", flushes.sum());
+        metrics.put("flushedRows", flushedRows.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.metrics.MetricsSource;
+import com.ecommerce.backend.repository.AuthTokenRepository;
+import com.ecommerce.backend.repository.AuthTokenRepository.TokenKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired auth tokens in small keyset-ordered chunks, one short
+ * transaction per chunk. A crash loses at most the chunk in flight; the next
+ * run starts again from the oldest expired row, which is where it stopped.
+ */
+@Service
+public class TokenPurgeService implements MetricsSource {
+    
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private final AuthTokenRepository authTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long pauseMillis;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalPurged = new AtomicLong();
+    private final AtomicLong totalChunks = new AtomicLong();
+    private volatile long lastRunPurged;
+    private volatile long lastChunkMillis;
+    private volatile long maxChunkMillis;
+    private volatile long expiryLagSeconds;
+    private volatile LocalDateTime lastRunAt;
+    
+    public TokenPurgeService(
+            AuthTokenRepository authTokenRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${auth.token.purge.chunk-size:1000}") int chunkSize,
+            @Value("${auth.token.purge.pause-ms:100}") long pauseMillis) {
+        this.authTokenRepository = authTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+    
+    public void purgeExpiredTokens() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime oldestExpired = authTokenRepository.findOldestExpiredAt(now);
+            expiryLagSeconds = oldestExpired == null ? 0 : Duration.between(oldestExpired, now).getSeconds();
+            
+            LocalDateTime afterExpiresAt = KEYSET_START;
+            Long afterId = 0L;
+            long purged = 0;
+            
+            while (true) {
+                long start = System.nanoTime();
+                LocalDateTime cursorExpiresAt = afterExpiresAt;
+                Long cursorId = afterId;
+                List<TokenKey> chunk = transactionTemplate.execute(status -> purgeChunk(now, cursorExpiresAt, cursorId));
+                recordChunk(System.nanoTime() - start);
+                
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                purged += chunk.size();
+                totalPurged.addAndGet(chunk.size());
+                
+                TokenKey last = chunk.get(chunk.size() - 1);
+                afterExpiresAt = last.getExpiresAt();
+                afterId = last.getId();
+                
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+                TimeUnit.MILLISECONDS.sleep(pauseMillis);
+            }
+            
+            lastRunPurged = purged;
+            lastRunAt = now;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private List<TokenKey> purgeChunk(LocalDateTime now, LocalDateTime afterExpiresAt, Long afterId) {
+        List<TokenKey> keys = authTokenRepository.findExpiredKeys(now, afterExpiresAt, afterId, PageRequest.of(0, chunkSize));
+        if (!keys.isEmpty()) {
+            authTokenRepository.deleteByIdIn(keys.stream().map(TokenKey::getId).toList());
+        }
+        return keys;
+    }
+    
+    private void recordChunk(long elapsedNanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        totalChunks.incrementAndGet();
+        lastChunkMillis = millis;
+        if (millis > maxChunkMillis) {
+            maxChunkMillis = millis;
+        }
+    }
+    
+    @Override
+    public String getMetricsName() {
+        return "authTokenPurge";
+    }
+    
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("totalPurged", totalPurged.get());
+        metrics.put("totalChunks", totalChunks.get());
+        metrics.put("lastRunPurged", lastRunPurged);
+        metrics.put("lastRunAt", lastRunAt);
+        metrics.put("lastChunkMillis", lastChunkMillis);
+        metrics.put("maxChunkMillis", maxChunkMillis);
+        metrics.put("expiryLagSeconds", expiryLagSeconds);
+        return metrics;
+    }
+}
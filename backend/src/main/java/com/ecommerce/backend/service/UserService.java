@@ -2,6 +2,7 @@ package com.ecommerce.backend.service;
 
 import com.ecommerce.backend.model.User;
 import com.ecommerce.backend.repository.UserRepository;
+import com.ecommerce.backend.security.TokenPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -18,6 +19,9 @@ public class UserService {
     @Autowired
     private BCryptPasswordEncoder passwordEncoder;
     
+    @Autowired
+    private TokenPrincipalCache tokenPrincipalCache;
+    
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -34,10 +38,13 @@ public class UserService {
         if (user.getPassword() != null && !user.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(user.getPassword()));
         }
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        tokenPrincipalCache.evictUser(savedUser.getId());
+        return savedUser;
     }
     
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        tokenPrincipalCache.evictUser(id);
     }
 }
\ No newline at end of file
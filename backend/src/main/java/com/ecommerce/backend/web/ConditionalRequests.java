@@ -0,0 +1,67 @@
+package com.ecommerce.backend.web;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Helpers for conditional GETs. Responses are marked {@code no-cache} so
+ * browsers keep them and revalidate with If-None-Match / If-Modified-Since,
+ * rather than the {@code no-store} Spring Security writes by default.
+ */
+public final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Sets the validators on the response and checks them against the request.
+     *
+     * @return true when the response has been turned into a 304 and the handler should return null
+     */
+    public static boolean checkNotModified(WebRequest request, String etag, LocalDateTime lastModified) {
+        HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+        if (lastModified == null) {
+            return request.checkNotModified(etag);
+        }
+        return request.checkNotModified(etag, lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Builds a strong ETag from the given version parts.
+     */
+    public static String etag(Object... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                tag.append('-');
+            }
+            Object part = parts[i];
+            tag.append(part instanceof LocalDateTime time
+                    ? Long.toString(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), 36)
+                    : String.valueOf(part));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * @return the later of the given timestamps, ignoring nulls
+     */
+    public static LocalDateTime latest(LocalDateTime... times) {
+        LocalDateTime latest = null;
+        for (LocalDateTime time : times) {
+            if (time != null && (latest == null || time.isAfter(latest))) {
+                latest = time;
+            }
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    private static final Duration LONG_TTL = Duration.ofMinutes(5);
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntryPastMaxSize() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, LONG_TTL);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.getIfPresent("a");
+        cache.put("c", "3");
+
+        assertThat(cache.getIfPresent("a")).isEqualTo("1");
+        assertThat(cache.getIfPresent("b")).isNull();
+        assertThat(cache.getIfPresent("c")).isEqualTo("3");
+        assertThat(cache.stats()).containsEntry("evictions", 1L);
+    }
+
+    @Test
+    void evictsByWeightAndSkipsEntriesHeavierThanTheCache() {
+        BoundedCache<String, byte[]> cache = new BoundedCache<>(100, 10, value -> value.length, LONG_TTL);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.put("c", new byte[4]);
+
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.stats()).containsEntry("weight", 8L);
+
+        cache.put("huge", new byte[11]);
+        assertThat(cache.getIfPresent("huge")).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void expiresEntriesAfterTheirTtl() throws InterruptedException {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofMillis(50));
+        cache.put("short", "1");
+        cache.put("shorter", "2", Duration.ofMillis(1));
+        // A longer per-entry ttl is capped at the cache default
+        cache.put("capped", "3", LONG_TTL);
+
+        Thread.sleep(100);
+
+        assertThat(cache.getIfPresent("short")).isNull();
+        assertThat(cache.getIfPresent("shorter")).isNull();
+        assertThat(cache.getIfPresent("capped")).isNull();
+        assertThat(cache.stats()).containsEntry("expirations", 3L);
+    }
+
+    @Test
+    void readThroughLoadsOnceAndDoesNotCacheNull() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, LONG_TTL);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(1L, id -> "v" + id + "/" + loads.incrementAndGet())).isEqualTo("v1/1");
+        assertThat(cache.get(1L, id -> "v" + id + "/" + loads.incrementAndGet())).isEqualTo("v1/1");
+        assertThat(cache.get(2L, id -> null)).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.stats()).containsEntry("loads", 2L);
+    }
+
+    @Test
+    void invalidatesByKeyPredicateAndAll() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(10, LONG_TTL);
+        cache.put("one", 1);
+        cache.put("two", 2);
+        cache.put("three", 3);
+
+        cache.invalidate("one");
+        cache.invalidateIf(value -> value % 2 == 0);
+        assertThat(cache.getIfPresent("two")).isNull();
+        assertThat(cache.getIfPresent("three")).isEqualTo(3);
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.OrderRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.support.TestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * More concurrent checkouts than pool connections, over real HTTP so the whole
+ * request runs as in production. A request holding one connection while the
+ * id generator waits for a second one would drain the pool and time out here.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:checkout-pool;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.hikari.maximum-pool-size=" + CheckoutConnectionPoolTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+@ActiveProfiles("test")
+class CheckoutConnectionPoolTest {
+
+    static final int POOL_SIZE = 4;
+
+    private static final int CHECKOUTS = 40;
+    private static final int STOCK = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newCachedThreadPool())
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void checkoutsBeyondThePoolSizeAllComplete() throws Exception {
+        Category category = TestSupport.category(categoryRepository, "Checkout pool");
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            products.add(TestSupport.product(productRepository, category, "Pool product " + i, "4.00", STOCK));
+        }
+        long ordersBefore = orderRepository.count();
+
+        // Three lines per cart, so the order item ids run out and are refilled mid-run
+        String body = checkout(products);
+        ExecutorService buyers = Executors.newFixedThreadPool(CHECKOUTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>(CHECKOUTS);
+        try {
+            for (int i = 0; i < CHECKOUTS; i++) {
+                statuses.add(buyers.submit(() -> {
+                    start.await();
+                    return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/orders"))
+                                    .header("Content-Type", "application/json")
+                                    .timeout(Duration.ofSeconds(30))
+                                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                                    .build(), HttpResponse.BodyHandlers.discarding())
+                            .statusCode();
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> status : statuses) {
+                assertThat(status.get(60, TimeUnit.SECONDS)).isEqualTo(201);
+            }
+        } finally {
+            buyers.shutdownNow();
+        }
+
+        assertThat(orderRepository.count()).isEqualTo(ordersBefore + CHECKOUTS);
+        for (Product product : products) {
+            assertThat(productRepository.findById(product.getId()).orElseThrow().getStock())
+                    .isEqualTo(STOCK - CHECKOUTS);
+        }
+
+        // Without open-in-view the tracking view has to fetch the lines and products itself
+        String trackingId = orderRepository.findAll().get(0).getTrackingId();
+        HttpResponse<String> tracked = client.send(HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/api/orders/track/" + trackingId)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(tracked.statusCode()).isEqualTo(200);
+        assertThat(tracked.body()).contains("Pool product 0", "Pool product 2");
+    }
+
+    private static String checkout(List<Product> products) {
+        StringBuilder items = new StringBuilder();
+        for (Product product : products) {
+            if (items.length() > 0) {
+                items.append(',');
+            }
+            items.append("{\"productId\":").append(product.getId()).append(",\"quantity\":1}");
+        }
+        return "{\"customerName\":\"Buyer\",\"customerPhone\":\"5550100\",\"customerEmail\":\"buyer@example.com\","
+                + "\"customerAddress\":\"1 Test Street\",\"items\":[" + items + "]}";
+    }
+}
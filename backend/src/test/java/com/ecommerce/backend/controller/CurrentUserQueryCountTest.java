@@ -0,0 +1,73 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.service.AuthService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.ecommerce.backend.support.TestSupport.register;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The token is resolved once, by the filter, and controllers get the result
+ * through {@code @CurrentUser} instead of looking the token up again.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CurrentUserQueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void authenticatedRequestLooksUpTheTokenOnce() throws Exception {
+        String token = register(authService, "Query Count").getToken();
+
+        statistics.clear();
+        profile(token);
+        // Token lookup in the filter plus the profile row; nothing else per request
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void cachedPrincipalSkipsTheTokenLookup() throws Exception {
+        String token = register(authService, "Query Count").getToken();
+        profile(token);
+
+        statistics.clear();
+        profile(token);
+        // Only the profile row: the filter served the principal from its cache
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void profile(String token) throws Exception {
+        mockMvc.perform(get("/api/users/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Query Count"));
+    }
+}
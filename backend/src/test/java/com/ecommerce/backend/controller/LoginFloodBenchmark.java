@@ -0,0 +1,159 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.security.PasswordHashingExecutor;
+import com.ecommerce.backend.service.AuthService;
+import com.ecommerce.backend.support.Benchmark;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.ecommerce.backend.support.TestSupport.PASSWORD;
+import static com.ecommerce.backend.support.TestSupport.percentile;
+import static com.ecommerce.backend.support.TestSupport.register;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency of an authenticated, database-backed request (the caller's profile)
+ * with and without a login flood, over real HTTP so that Tomcat's request
+ * threads and the connection pool are part of the measurement. Options:
+ * <pre>
+ * [-Dbenchmark.login-threads=128] [-Dbenchmark.seconds=10] [-Dbenchmark.password.pool-size=0]
+ * </pre>
+ * Logins beyond the hashing pool and its queue are answered with 503, which
+ * is what keeps the profile p99 close to the idle one.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "auth.password.pool-size=${benchmark.password.pool-size:0}")
+@Benchmark
+class LoginFloodBenchmark {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newCachedThreadPool())
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void profileLatencyDuringLoginFlood() throws Exception {
+        int loginThreads = Integer.getInteger("benchmark.login-threads", 128);
+        int seconds = Integer.getInteger("benchmark.seconds", 10);
+        String email = register(authService, "Login Flood").getEmail();
+        // A separate account: every flooding login revokes the tokens of the one it signs in to
+        String token = register(authService, "Profile Reader").getToken();
+
+        // Warm up the JIT and the profile path before measuring
+        sampleProfile(token, Math.max(1, seconds / 2));
+
+        long[] idle = sampleProfile(token, seconds);
+
+        ConcurrentHashMap<Integer, LongAdder> loginStatuses = new ConcurrentHashMap<>();
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        ExecutorService flood = Executors.newFixedThreadPool(loginThreads);
+        List<Future<?>> flooders = new ArrayList<>(loginThreads);
+        long[] loaded;
+        try {
+            for (int i = 0; i < loginThreads; i++) {
+                flooders.add(flood.submit(() -> {
+                    while (flooding.get()) {
+                        int status = send(HttpRequest.newBuilder(uri("/api/users/login"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(
+                                        "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}"))
+                                .build());
+                        loginStatuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+                    }
+                    return null;
+                }));
+            }
+            // Let the flood saturate the hashing pool before sampling
+            Thread.sleep(1000);
+            loaded = sampleProfile(token, seconds);
+        } finally {
+            flooding.set(false);
+            flood.shutdown();
+            flood.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        for (Future<?> flooder : flooders) {
+            flooder.get();
+        }
+
+        System.out.printf("profile latency idle: %s%n", summary(idle));
+        System.out.printf("profile latency during %d-thread login flood: %s%n", loginThreads, summary(loaded));
+        System.out.printf("login responses by status: %s; password hashing: %s%n", loginStatuses,
+                passwordHashingExecutor.getMetrics());
+
+        assertThat(loginStatuses).containsKey(200);
+    }
+
+    /**
+     * Requests the caller's profile back to back for the given time. Unlike the
+     * anonymous catalog, which the response cache serves from memory, every
+     * request goes through the token filter and reads the users row.
+     *
+     * @return sorted latencies in nanoseconds
+     */
+    private long[] sampleProfile(String token, int seconds) {
+        List<Long> latencies = new ArrayList<>();
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        while (System.nanoTime() < end) {
+            long begin = System.nanoTime();
+            int status = send(HttpRequest.newBuilder(uri("/api/users/me"))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                    .GET()
+                    .build());
+            latencies.add(System.nanoTime() - begin);
+            assertThat(status).isEqualTo(200);
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String summary(long[] sorted) {
+        return String.format("%d requests, p50 %.2f ms, p99 %.2f ms, max %.2f ms", sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.backend.intake;
+
+import com.ecommerce.backend.dto.OrderIntakeStatusDTO;
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.exception.ServiceBusyException;
+import com.ecommerce.backend.model.Order;
+import com.ecommerce.backend.model.OrderItem;
+import com.ecommerce.backend.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ecommerce.backend.support.TestSupport.complete;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs one worker against a mocked OrderService. The first batch is held in
+ * its transaction so the orders submitted meanwhile drain as one group.
+ */
+class OrderIntakePipelineTest {
+
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private final AtomicLong nextId = new AtomicLong();
+    // Order ids seen by createOrder, to check the fallback starts from clean instances
+    private final List<Long> idsSeenAlone = new ArrayList<>();
+
+    private OrderService orderService;
+    private OrderIntakePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        AtomicInteger trackingIds = new AtomicInteger();
+        when(orderService.generateTrackingId()).thenAnswer(invocation -> "T-" + trackingIds.incrementAndGet());
+        doAnswer(invocation -> {
+            // Ids are assigned on persist and survive a rollback on the instances
+            Order order = invocation.getArgument(0);
+            order.setId(nextId.incrementAndGet());
+            invocation.<List<OrderItem>>getArgument(1).forEach(item -> item.setId(nextId.incrementAndGet()));
+            return order;
+        }).when(orderService).placeOrder(any(), anyList());
+        when(orderService.createOrder(any(), anyList())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            synchronized (idsSeenAlone) {
+                idsSeenAlone.add(order.getId());
+                invocation.<List<OrderItem>>getArgument(1).forEach(item -> idsSeenAlone.add(item.getId()));
+            }
+            return order;
+        });
+
+        AtomicBoolean first = new AtomicBoolean(true);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            return invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null);
+        });
+
+        pipeline = new OrderIntakePipeline(orderService, transactionTemplate, "async", 3, 50, 1, 60);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        releaseFirstBatch.countDown();
+        pipeline.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void ordersQueuedDuringABatchCommitAsOneGroup() throws InterruptedException {
+        holdFirstBatch();
+        List<String> group = List.of(submit(), submit(), submit());
+        releaseFirstBatch.countDown();
+
+        awaitCompleted(4);
+
+        Map<String, Object> metrics = pipeline.getMetrics();
+        assertThat(metrics).containsEntry("batches", 2L).containsEntry("lastBatchSize", 3)
+                .containsEntry("committed", 4L).containsEntry("failed", 0L).containsEntry("groupFallbacks", 0L);
+        group.forEach(trackingId -> assertThat(pipeline.getStatus(trackingId)).isEmpty());
+        verify(orderService, never()).createOrder(any(), anyList());
+    }
+
+    @Test
+    void shortOrderInAGroupFailsAloneAndTheRestCommit() throws InterruptedException {
+        holdFirstBatch();
+        String before = submit();
+        String shortOrder = submit();
+        String after = submit();
+        doThrow(new InsufficientStockException("Not enough stock for product: Mug"))
+                .when(orderService).placeOrder(orderWithTrackingId(shortOrder), anyList());
+        releaseFirstBatch.countDown();
+
+        awaitCompleted(4);
+
+        assertThat(pipeline.getStatus(shortOrder)).get()
+                .extracting(OrderIntakeStatusDTO::getStatus, OrderIntakeStatusDTO::getMessage)
+                .containsExactly("Failed", "Not enough stock for product: Mug");
+        assertThat(pipeline.getStatus(before)).isEmpty();
+        assertThat(pipeline.getStatus(after)).isEmpty();
+        assertThat(pipeline.getMetrics()).containsEntry("committed", 3L).containsEntry("groupFallbacks", 0L);
+        verify(orderService, never()).createOrder(any(), anyList());
+    }
+
+    @Test
+    void failedGroupIsRetriedOneOrderAtATimeFromCleanIds() throws InterruptedException {
+        holdFirstBatch();
+        String before = submit();
+        String broken = submit();
+        String after = submit();
+        // Fails after the earlier order of the group already got its ids
+        doThrow(new IllegalStateException("Deadlock found"))
+                .when(orderService).placeOrder(orderWithTrackingId(broken), anyList());
+        doThrow(new IllegalStateException("Deadlock found"))
+                .when(orderService).createOrder(orderWithTrackingId(broken), anyList());
+        releaseFirstBatch.countDown();
+
+        awaitCompleted(4);
+
+        assertThat(pipeline.getMetrics()).containsEntry("groupFallbacks", 1L)
+                .containsEntry("committed", 3L).containsEntry("failed", 1L);
+        // Order and item ids of the two orders that placed alone
+        assertThat(idsSeenAlone).hasSize(4).containsOnlyNulls();
+        assertThat(pipeline.getStatus(broken)).get()
+                .extracting(OrderIntakeStatusDTO::getMessage).isEqualTo("Order could not be placed");
+        assertThat(pipeline.getStatus(before)).isEmpty();
+        assertThat(pipeline.getStatus(after)).isEmpty();
+    }
+
+    @Test
+    void fullQueueIsRejectedWithoutTrackingTheOrder() throws InterruptedException {
+        holdFirstBatch();
+        submit();
+        submit();
+        submit();
+
+        assertThatThrownBy(this::submit).isInstanceOf(ServiceBusyException.class);
+
+        assertThat(pipeline.getStatus("T-5")).isEmpty();
+        assertThat(pipeline.getMetrics()).containsEntry("rejected", 1L).containsEntry("queueDepth", 3);
+    }
+
+    @Test
+    void ordersSubmittedInATransactionAreQueuedOnlyOnCommit() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        String rolledBack = submit();
+        assertThat(pipeline.getStatus(rolledBack)).get().extracting(OrderIntakeStatusDTO::getStatus).isEqualTo("Queued");
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(pipeline.getStatus(rolledBack)).isEmpty();
+        assertThat(pipeline.getMetrics()).containsEntry("queueDepth", 0);
+
+        TransactionSynchronizationManager.initSynchronization();
+        String committed = submit();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        releaseFirstBatch.countDown();
+
+        awaitCompleted(1);
+        assertThat(pipeline.getStatus(committed)).isEmpty();
+        verify(orderService).placeOrder(orderWithTrackingId(committed), anyList());
+        verify(orderService, never()).placeOrder(orderWithTrackingId(rolledBack), anyList());
+    }
+
+    private void holdFirstBatch() throws InterruptedException {
+        submit();
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private String submit() {
+        OrderItem item = new OrderItem();
+        item.setQuantity(1);
+        return pipeline.submit(new Order(), new ArrayList<>(List.of(item))).getTrackingId();
+    }
+
+    private void awaitCompleted(long orders) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (completed() < orders && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(completed()).isEqualTo(orders);
+    }
+
+    private long completed() {
+        Map<String, Object> metrics = pipeline.getMetrics();
+        return (long) metrics.get("committed") + (long) metrics.get("failed");
+    }
+
+    private static Order orderWithTrackingId(String trackingId) {
+        return argThat(order -> order != null && trackingId.equals(order.getTrackingId()));
+    }
+}
@@ -0,0 +1,176 @@
+package com.ecommerce.backend.inventory;
+
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.model.InventoryJournalEntry;
+import com.ecommerce.backend.model.OrderItem;
+import com.ecommerce.backend.repository.InventoryJournalRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.support.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.ecommerce.backend.support.TestSupport.complete;
+import static com.ecommerce.backend.support.TestSupport.inlineTransactions;
+import static com.ecommerce.backend.support.TestSupport.product;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryLedgerTest {
+
+    private ProductRepository productRepository;
+    private InventoryJournalRepository journalRepository;
+    private InventoryLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        journalRepository = mock(InventoryJournalRepository.class);
+        when(productRepository.findAvailableStock(1L)).thenReturn(Optional.of(10L));
+        when(productRepository.findAvailableStock(2L)).thenReturn(Optional.of(1L));
+
+        ledger = new InventoryLedger(productRepository, journalRepository, inlineTransactions(), "ledger", 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reserveTakesEveryLineAndJournalsIt() {
+        ledger.reserve(List.of(line(1L, 3), line(2L, 1)), "T-1");
+
+        assertThat(ledger.available(1L, 0)).isEqualTo(7);
+        assertThat(ledger.available(2L, 0)).isZero();
+        assertThat(ledger.lastMovementAt(1L)).isNotNull();
+        assertThat(ledger.isCounted(1L)).isTrue();
+        assertThat(ledger.isCounted(3L)).isFalse();
+        assertThat(journaled()).extracting(InventoryJournalEntry::getProductId, InventoryJournalEntry::getDelta)
+                .containsExactly(tuple(1L, -3), tuple(2L, -1));
+    }
+
+    @Test
+    void shortLineGivesBackTheLinesAlreadyTaken() {
+        assertThatThrownBy(() -> ledger.reserve(List.of(line(1L, 3), line(2L, 2)), "T-1"))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(ledger.available(1L, 0)).isEqualTo(10);
+        assertThat(ledger.available(2L, 0)).isEqualTo(1);
+        verify(journalRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void rollbackReleasesTheReservation() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.reserve(List.of(line(1L, 4)), "T-1");
+        assertThat(ledger.available(1L, 0)).isEqualTo(6);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(ledger.available(1L, 0)).isEqualTo(10);
+    }
+
+    @Test
+    void commitKeepsTheReservation() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.reserve(List.of(line(1L, 4)), "T-1");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(ledger.available(1L, 0)).isEqualTo(6);
+    }
+
+    @Test
+    void failedJournalInsertOutsideATransactionGivesStockBack() {
+        when(journalRepository.saveAll(anyList())).thenThrow(new IllegalStateException("insert failed"));
+
+        assertThatThrownBy(() -> ledger.reserve(List.of(line(1L, 4)), "T-1"))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(ledger.available(1L, 0)).isEqualTo(10);
+    }
+
+    @Test
+    void adjustToOnlySwapsWhenTheExpectedStockStillHolds() {
+        ledger.reserve(List.of(line(1L, 3)), "T-1");
+
+        // The admin loaded the form at 10, before the sale
+        assertThat(ledger.adjustTo(1L, 10, 20)).isFalse();
+        assertThat(ledger.available(1L, 0)).isEqualTo(7);
+
+        assertThat(ledger.adjustTo(1L, 7, 20)).isTrue();
+        assertThat(ledger.available(1L, 0)).isEqualTo(20);
+        assertThat(journaled()).extracting(InventoryJournalEntry::getDelta).containsExactly(-3, 13);
+    }
+
+    @Test
+    void adjustToWithoutExpectedStockOverwrites() {
+        ledger.reserve(List.of(line(1L, 3)), "T-1");
+
+        assertThat(ledger.adjustTo(1L, null, 2)).isTrue();
+
+        assertThat(ledger.available(1L, 0)).isEqualTo(2);
+        assertThat(journaled()).extracting(InventoryJournalEntry::getDelta).containsExactly(-3, -5);
+    }
+
+    @Test
+    void flushAppliesOneNetUpdatePerProductAndDeletesTheRows() {
+        when(journalRepository.findPending(any(Limit.class))).thenReturn(List.of(
+                new InventoryJournalEntry(1L, 1L, -3, "T-1", null),
+                new InventoryJournalEntry(2L, 2L, -1, "T-1", null),
+                new InventoryJournalEntry(3L, 1L, 13, "admin", null),
+                new InventoryJournalEntry(4L, 2L, 1, "admin", null)));
+
+        ledger.flush();
+
+        verify(productRepository).adjustStock(eq(1L), eq(10), any());
+        verify(productRepository, never()).adjustStock(eq(2L), anyInt(), any());
+        verify(journalRepository).deleteByIdIn(List.of(1L, 2L, 3L, 4L));
+    }
+
+    @Test
+    void disabledLedgerServesTheColumnValue() {
+        InventoryLedger disabled = new InventoryLedger(productRepository, journalRepository,
+                mock(TransactionTemplate.class), "database", 5000);
+
+        disabled.flush();
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.isCounted(1L)).isFalse();
+        assertThat(disabled.available(1L, 4)).isEqualTo(4);
+        assertThat(disabled.available(1L, null)).isZero();
+        verify(journalRepository, never()).findPending(any(Limit.class));
+    }
+
+    private List<InventoryJournalEntry> journaled() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryJournalEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository, atLeastOnce()).saveAll(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    private static OrderItem line(Long productId, int quantity) {
+        return TestSupport.line(product(productId), quantity);
+    }
+}
@@ -0,0 +1,192 @@
+package com.ecommerce.backend.search;
+
+import com.ecommerce.backend.dto.CategoryFacetDTO;
+import com.ecommerce.backend.dto.PriceBucketDTO;
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.inventory.InventoryLedger;
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.ProductRepository.FacetSource;
+import com.ecommerce.backend.search.FacetEngine.FacetQuery;
+import com.ecommerce.backend.search.FacetEngine.FacetResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FacetEngineTest {
+
+    private ProductRepository productRepository;
+    private SearchEngine searchEngine;
+    private InventoryLedger inventoryLedger;
+    private FacetEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        CategoryRepository categoryRepository = mock(CategoryRepository.class);
+        searchEngine = mock(SearchEngine.class);
+        inventoryLedger = mock(InventoryLedger.class);
+        when(inventoryLedger.available(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Shirts"), category(2L, "Shoes")));
+        when(productRepository.findAllFacetSources()).thenReturn(List.of(
+                product(5L, "45.00", 2, 1L),
+                product(1L, "10.00", 5, 1L),
+                product(2L, "30.00", 0, 1L),
+                product(3L, "60.00", 3, 2L),
+                product(4L, "25.00", 1, 2L)));
+
+        engine = new FacetEngine(productRepository, categoryRepository, searchEngine, inventoryLedger,
+                List.of(new BigDecimal("50"), new BigDecimal("25")));
+        engine.onApplicationReady();
+    }
+
+    @Test
+    void filtersIntersect() {
+        FacetResult result = engine.filter(query(null, "50", 1L, true), PageRequest.of(0, 10));
+
+        assertThat(result.productIds()).containsExactly(1L, 5L);
+        assertThat(result.total()).isEqualTo(2);
+    }
+
+    @Test
+    void eachFacetIgnoresOnlyItsOwnFilter() {
+        FacetResult result = engine.filter(query(null, "50", 1L, true), PageRequest.of(0, 10));
+
+        // Categories: in stock and at most 50, any category
+        assertThat(result.categories()).extracting(CategoryFacetDTO::getCategoryId, CategoryFacetDTO::getCount)
+                .containsExactly(tuple(1L, 2L), tuple(2L, 1L));
+        // Prices: in stock in category 1, any price
+        assertThat(result.priceBuckets()).extracting(PriceBucketDTO::getCount).containsExactly(1L, 1L, 0L);
+    }
+
+    @Test
+    void inStockCountAppliesEveryOtherFilter() {
+        FacetResult result = engine.filter(query(null, "50", 1L, null), PageRequest.of(0, 10));
+
+        assertThat(result.productIds()).containsExactly(1L, 2L, 5L);
+        assertThat(result.inStockCount()).isEqualTo(2);
+    }
+
+    @Test
+    void priceBucketsAreLowerInclusive() {
+        FacetResult result = engine.filter(query(null, null, null, null), PageRequest.of(0, 10));
+
+        assertThat(result.priceBuckets()).extracting(PriceBucketDTO::getMin, PriceBucketDTO::getMax)
+                .containsExactly(
+                        tuple(new BigDecimal("0.00"), new BigDecimal("25.00")),
+                        tuple(new BigDecimal("25.00"), new BigDecimal("50.00")),
+                        tuple(new BigDecimal("50.00"), null));
+        // 25.00 falls in the second bucket, not the first
+        assertThat(result.priceBuckets()).extracting(PriceBucketDTO::getCount).containsExactly(1L, 3L, 1L);
+    }
+
+    @Test
+    void textMatchesKeepTheSearchOrder() {
+        when(searchEngine.isReady()).thenReturn(true);
+        when(searchEngine.matchAll("shirt")).thenReturn(List.of(5L, 3L, 1L, 99L));
+
+        FacetResult result = engine.filter(new FacetQuery(null, null, 1L, null, "shirt"), PageRequest.of(0, 10));
+
+        assertThat(result.productIds()).containsExactly(5L, 1L);
+        assertThat(result.categories()).extracting(CategoryFacetDTO::getCount).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void pagesSliceTheMatchesButCountThemAll() {
+        FacetResult result = engine.filter(query(null, null, null, null), PageRequest.of(1, 2));
+
+        assertThat(result.productIds()).containsExactly(3L, 4L);
+        assertThat(result.total()).isEqualTo(5);
+    }
+
+    @Test
+    void stockChangesFlipTheInStockBit() throws InterruptedException {
+        when(productRepository.findFacetSourcesByIdIn(List.of(2L))).thenReturn(List.of(product(2L, "30.00", 4, 1L)));
+
+        engine.onProductChanged(new ProductChangedEvent(2L, true));
+
+        assertThat(inStockInCategory(1L, List.of(1L, 2L, 5L))).containsExactly(1L, 2L, 5L);
+        assertThat(engine.productIdsInCategory(1L, 10, Set.of(1L))).containsExactly(2L, 5L);
+    }
+
+    @Test
+    void ledgerStockChangesSkipTheDatabase() throws InterruptedException {
+        when(inventoryLedger.isCounted(5L)).thenReturn(true);
+        when(inventoryLedger.available(eq(5L), isNull())).thenReturn(0);
+
+        engine.onProductChanged(new ProductChangedEvent(5L, true));
+
+        assertThat(inStockInCategory(1L, List.of(1L))).containsExactly(1L);
+        verify(productRepository, never()).findFacetSourcesByIdIn(anyCollection());
+    }
+
+    @Test
+    void categoryListingPutsSoldOutProductsLast() {
+        assertThat(engine.productIdsInCategory(1L, 10, Set.of())).containsExactly(1L, 5L, 2L);
+        assertThat(engine.productIdsInCategory(7L, 10, Set.of())).isEmpty();
+    }
+
+    // Stock changes are applied on the facet thread; polls until the expected rows show up or time runs out
+    private List<Long> inStockInCategory(Long categoryId, List<Long> expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<Long> productIds = engine.filter(query(null, null, categoryId, true), PageRequest.of(0, 10)).productIds();
+        while (!productIds.equals(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            productIds = engine.filter(query(null, null, categoryId, true), PageRequest.of(0, 10)).productIds();
+        }
+        return productIds;
+    }
+
+    private static FacetQuery query(String minPrice, String maxPrice, Long categoryId, Boolean inStock) {
+        return new FacetQuery(minPrice == null ? null : new BigDecimal(minPrice),
+                maxPrice == null ? null : new BigDecimal(maxPrice), categoryId, inStock, null);
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static FacetSource product(Long id, String price, Integer stock, Long categoryId) {
+        return new FacetSource() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public BigDecimal getPrice() {
+                return new BigDecimal(price);
+            }
+
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+
+            @Override
+            public Long getCategoryId() {
+                return categoryId;
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.backend.search;
+
+import com.ecommerce.backend.event.ProductChangedEvent;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.repository.ProductRepository.SearchDocument;
+import com.ecommerce.backend.search.SearchEngine.SearchHits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InvertedIndexSearchEngineTest {
+
+    private ProductRepository productRepository;
+    private InvertedIndexSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        engine = new InvertedIndexSearchEngine(productRepository);
+    }
+
+    @Test
+    void nameMatchesOutrankDescriptionMatches() {
+        index(document(1L, "Leather wallet", "Fits a phone"),
+                document(2L, "Phone case", "Slim leather"),
+                document(3L, "Desk lamp", "Warm light"));
+
+        assertThat(engine.matchAll("leather")).containsExactly(1L, 2L);
+        assertThat(engine.matchAll("phone")).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void everyTermMustMatchAndOnlyTheLastOneAsAPrefix() {
+        index(document(1L, "Wireless mouse", null),
+                document(2L, "Wired mouse", null),
+                document(3L, "Wireless keyboard", null));
+
+        assertThat(engine.matchAll("mouse wirel")).containsExactly(1L);
+        assertThat(engine.matchAll("wire mouse")).isEmpty();
+        assertThat(engine.matchAll("wire")).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void queriesWithoutTermsAreNotHandled() {
+        index(document(1L, "Anything", null));
+
+        assertThat(engine.matchAll(" ?! ")).isNull();
+    }
+
+    @Test
+    void searchPagesThroughTheRankedMatches() {
+        index(document(1L, "Blue mug", null), document(2L, "Blue cup", null), document(3L, "Blue bowl", null));
+
+        SearchHits hits = engine.search("blue", PageRequest.of(1, 2));
+
+        assertThat(hits.total()).isEqualTo(3);
+        assertThat(hits.productIds()).hasSize(1);
+    }
+
+    @Test
+    void shortPrefixesKeepTheMostCommonExpansions() {
+        List<SearchDocument> documents = new ArrayList<>();
+        // More rare terms under "pa" than a prefix expands to, sorting before the common one
+        for (long id = 1; id <= 60; id++) {
+            documents.add(document(id, String.format("pa%02d", id), null));
+        }
+        for (long id = 100; id < 105; id++) {
+            documents.add(document(id, "pazzle", null));
+        }
+        index(documents.toArray(SearchDocument[]::new));
+
+        assertThat(engine.matchAll("pa")).contains(100L, 101L, 102L, 103L, 104L);
+    }
+
+    @Test
+    void productChangesReplaceTheOldTerms() {
+        index(document(1L, "Red kettle", null));
+        when(productRepository.findSearchDocumentById(1L)).thenReturn(Optional.of(document(1L, "Steel kettle", null)));
+
+        engine.onProductChanged(new ProductChangedEvent(1L));
+
+        assertThat(engine.matchAll("red")).isEmpty();
+        assertThat(engine.matchAll("steel")).containsExactly(1L);
+    }
+
+    @Test
+    void deletedProductsLeaveTheIndexAndStockChangesAreIgnored() {
+        index(document(1L, "Red kettle", null));
+
+        engine.onProductChanged(new ProductChangedEvent(1L, true));
+        verify(productRepository, never()).findSearchDocumentById(1L);
+
+        when(productRepository.findSearchDocumentById(1L)).thenReturn(Optional.empty());
+        engine.onProductChanged(new ProductChangedEvent(1L));
+        assertThat(engine.matchAll("kettle")).isEmpty();
+    }
+
+    private void index(SearchDocument... documents) {
+        when(productRepository.findAllSearchDocuments()).thenReturn(List.of(documents));
+        engine.rebuild();
+        assertThat(engine.isReady()).isTrue();
+    }
+
+    private static SearchDocument document(Long id, String name, String description) {
+        return new SearchDocument() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    private final SuggestionTrie<String> trie = SuggestionTrie.<String>builder(3)
+            .add("Red Shirt", 5, "A")
+            .add("Blue Shirt", 9, "B")
+            .add("Red Shoes", 2, "C")
+            .add("Shampoo", 1, "D")
+            .add("Short Shorts", 7, "E")
+            .build();
+
+    @Test
+    void prefixReturnsTheHeaviestSuggestionsFirst() {
+        assertThat(trie.lookup("sh", 10)).containsExactly("B", "E", "A");
+        assertThat(trie.lookup("sho", 10)).containsExactly("E", "C");
+        assertThat(trie.lookup("shirt", 10)).containsExactly("B", "A");
+    }
+
+    @Test
+    void resultsAreCappedByLimitAndTopN() {
+        assertThat(trie.lookup("sh", 1)).containsExactly("B");
+        // Only the top 3 are precomputed per node
+        assertThat(trie.lookup("s", 10)).hasSize(3);
+    }
+
+    @Test
+    void earlierWordsMatchWholeAndTheLastAsAPrefixInAnyOrder() {
+        assertThat(trie.lookup("red sh", 10)).containsExactly("A", "C");
+        assertThat(trie.lookup("shirt re", 10)).containsExactly("A");
+        assertThat(trie.lookup("re sh", 10)).isEmpty();
+    }
+
+    @Test
+    void matchingIgnoresCaseAccentsAndExtraSpaces() {
+        SuggestionTrie<String> accented = SuggestionTrie.<String>builder(3)
+                .add("Crème Brûlée", 1, "dessert")
+                .build();
+
+        assertThat(accented.lookup("  CREME   bru ", 10)).containsExactly("dessert");
+    }
+
+    @Test
+    void unknownOrEmptyQueriesMatchNothing() {
+        assertThat(trie.lookup("xyz", 10)).isEmpty();
+        assertThat(trie.lookup("", 10)).isEmpty();
+        assertThat(trie.lookup("   ", 10)).isEmpty();
+        assertThat(trie.lookup("sh", 0)).isEmpty();
+    }
+
+    @Test
+    void singleChildChainsAreMergedIntoOneEdge() {
+        SuggestionTrie<String> single = SuggestionTrie.<String>builder(3)
+                .add("keyboard", 1, "K")
+                .build();
+
+        // The root plus one edge labelled "keyboard"
+        assertThat(single.nodeCount()).isEqualTo(2);
+        assertThat(single.lookup("keyb", 10)).containsExactly("K");
+        assertThat(single.lookup("keyx", 10)).isEmpty();
+        assertThat(trie.size()).isEqualTo(5);
+    }
+}
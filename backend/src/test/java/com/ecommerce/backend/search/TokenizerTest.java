@@ -0,0 +1,31 @@
+package com.ecommerce.backend.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenizerTest {
+
+    @Test
+    void lowercasesAndSplitsOnAnythingButLettersAndDigits() {
+        assertThat(Tokenizer.tokenize("USB-C Cable, 2m (braided)!"))
+                .containsExactly("usb", "c", "cable", "2m", "braided");
+    }
+
+    @Test
+    void foldsAccents() {
+        assertThat(Tokenizer.tokenize("Crème Brûlée Café")).containsExactly("creme", "brulee", "cafe");
+    }
+
+    @Test
+    void keepsNonLatinLetters() {
+        assertThat(Tokenizer.tokenize("Чай 绿茶")).containsExactly("чаи", "绿茶");
+    }
+
+    @Test
+    void emptyInputHasNoTerms() {
+        assertThat(Tokenizer.tokenize(null)).isEmpty();
+        assertThat(Tokenizer.tokenize("")).isEmpty();
+        assertThat(Tokenizer.tokenize(" -- ")).isEmpty();
+    }
+}
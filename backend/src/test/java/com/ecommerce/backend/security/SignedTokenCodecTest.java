@@ -0,0 +1,101 @@
+package com.ecommerce.backend.security;
+
+import com.ecommerce.backend.model.User;
+import com.ecommerce.backend.security.SignedTokenCodec.SignedTokenClaims;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SignedTokenCodecTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SignedTokenCodec codec = new SignedTokenCodec(SECRET, "stateless", objectMapper);
+
+    @Test
+    void roundTripsTheClaims() {
+        String token = codec.issue(user(false), Instant.now().plusSeconds(600));
+
+        Optional<SignedTokenClaims> claims = codec.verify(token);
+
+        assertThat(codec.isSignedToken(token)).isTrue();
+        assertThat(claims).isPresent();
+        assertThat(claims.get().toPrincipal())
+                .isEqualTo(new AuthenticatedUser(7L, "Signed User", "signed@example.com", false));
+        assertThat(claims.get().jti()).hasSize(32);
+    }
+
+    @Test
+    void rejectsATamperedPayload() throws Exception {
+        String token = codec.issue(user(false), Instant.now().plusSeconds(600));
+        String signature = token.substring(token.indexOf('.') + 1);
+        SignedTokenClaims claims = codec.verify(token).orElseThrow();
+
+        // Same signature over a payload that grants admin
+        SignedTokenClaims forged = new SignedTokenClaims(claims.uid(), claims.email(), claims.name(), true,
+                claims.exp(), claims.jti());
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(objectMapper.writeValueAsBytes(forged));
+
+        assertThat(codec.verify(forgedPayload + "." + signature)).isEmpty();
+    }
+
+    @Test
+    void rejectsATamperedSignature() {
+        String token = codec.issue(user(true), Instant.now().plusSeconds(600));
+        char last = token.charAt(token.length() - 1);
+        String tampered = token.substring(0, token.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThat(codec.verify(tampered)).isEmpty();
+        assertThat(codec.verify(token.substring(0, token.indexOf('.') + 1))).isEmpty();
+        assertThat(codec.verify("not-a-token")).isEmpty();
+    }
+
+    @Test
+    void rejectsTokensSignedWithAnotherSecret() {
+        SignedTokenCodec other = new SignedTokenCodec("another-secret-that-is-32-bytes!", "stateless", objectMapper);
+        String token = other.issue(user(false), Instant.now().plusSeconds(600));
+
+        assertThat(codec.verify(token)).isEmpty();
+    }
+
+    @Test
+    void expiredTokensFailVerificationButStillDecodeForRevocation() {
+        String token = codec.issue(user(false), Instant.now().minusSeconds(1));
+
+        assertThat(codec.verify(token)).isEmpty();
+        assertThat(codec.decode(token)).isPresent();
+    }
+
+    @Test
+    void refusesShortSecrets() {
+        assertThatThrownBy(() -> new SignedTokenCodec("too-short", "stateless", objectMapper))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void statelessModeRequiresASecret() {
+        assertThatThrownBy(() -> new SignedTokenCodec("", "stateless", objectMapper))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("auth.token.secret");
+
+        SignedTokenCodec databaseMode = new SignedTokenCodec("", "database", objectMapper);
+        assertThat(databaseMode.verify(codec.issue(user(false), Instant.now().plusSeconds(600)))).isEmpty();
+    }
+
+    private static User user(boolean admin) {
+        User user = new User();
+        user.setId(7L);
+        user.setName("Signed User");
+        user.setEmail("signed@example.com");
+        user.setIsAdmin(admin);
+        return user;
+    }
+}
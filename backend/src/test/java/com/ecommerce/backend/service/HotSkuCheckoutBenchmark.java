@@ -0,0 +1,117 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.inventory.InventoryLedger;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.support.Benchmark;
+import com.ecommerce.backend.support.TestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.ecommerce.backend.support.TestSupport.line;
+import static com.ecommerce.backend.support.TestSupport.order;
+import static com.ecommerce.backend.support.TestSupport.percentile;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checkout throughput on one hot SKU. Options:
+ * <pre>
+ * [-Dbenchmark.inventory.mode=ledger] [-Dbenchmark.threads=32] [-Dbenchmark.orders=20000]
+ * </pre>
+ */
+@SpringBootTest(properties = "inventory.mode=${benchmark.inventory.mode:database}")
+@Benchmark
+class HotSkuCheckoutBenchmark {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InventoryLedger inventoryLedger;
+
+    @Test
+    void hotSkuThroughput() throws Exception {
+        int threads = Integer.getInteger("benchmark.threads", 32);
+        int orders = Integer.getInteger("benchmark.orders", 20000);
+        // Stock for 90% of the attempts, so the sold-out path is measured too
+        int stock = orders * 9 / 10;
+
+        // Warm up the JIT, connection pool and id generators on a throwaway SKU before measuring
+        int warmUp = Math.min(2000, orders / 10);
+        run(hotProduct(warmUp), threads, warmUp);
+
+        Product product = hotProduct(stock);
+        Result result = run(product, threads, orders);
+        inventoryLedger.flush();
+
+        long[] latencies = result.latencyNanos();
+        Arrays.sort(latencies);
+        System.out.printf("hot SKU checkout [%s mode, %d threads]: %d orders in %d ms = %.0f orders/s, "
+                        + "%d sold out; latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                inventoryLedger.isEnabled() ? "ledger" : "database", threads, orders, result.elapsedMillis(),
+                orders * 1000.0 / result.elapsedMillis(), result.soldOut(),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+
+        assertThat(orders - result.soldOut()).isEqualTo(stock);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isZero();
+    }
+
+    private Result run(Product product, int threads, int orders) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger soldOut = new AtomicInteger();
+        long[] latencies = new long[orders];
+        List<Future<?>> futures = new ArrayList<>(orders);
+        try {
+            for (int i = 0; i < orders; i++) {
+                int slot = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long begin = System.nanoTime();
+                    try {
+                        orderService.createOrder(order(product.getPrice()), List.of(line(product, 1)));
+                    } catch (InsufficientStockException e) {
+                        soldOut.incrementAndGet();
+                    }
+                    latencies[slot] = System.nanoTime() - begin;
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+            return new Result((System.nanoTime() - begin) / 1_000_000, soldOut.get(), latencies);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Product hotProduct(int stock) {
+        return TestSupport.product(productRepository, TestSupport.category(categoryRepository, "Benchmark"),
+                "Hot SKU", "19.99", stock);
+    }
+
+    private record Result(long elapsedMillis, int soldOut, long[] latencyNanos) {
+    }
+}
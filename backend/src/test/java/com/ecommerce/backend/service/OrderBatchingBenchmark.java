@@ -0,0 +1,95 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.model.OrderItem;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.support.Benchmark;
+import com.ecommerce.backend.support.TestSupport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ecommerce.backend.support.TestSupport.line;
+import static com.ecommerce.backend.support.TestSupport.order;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements and time per order for a large cart, placed one order at a time.
+ * Compare batched and unbatched inserts with the options
+ * <pre>
+ * [-Dbenchmark.jdbc.batch-size=1] [-Dbenchmark.lines=20] [-Dbenchmark.orders=2000]
+ * </pre>
+ * Hibernate prepares a statement once per JDBC batch, so the statement count
+ * tracks round trips. The timings leave out the network, which is where
+ * batching gains the most against MySQL.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=${benchmark.jdbc.batch-size:50}")
+@Benchmark
+class OrderBatchingBenchmark {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void largeCartThroughput() {
+        int lines = Integer.getInteger("benchmark.lines", 20);
+        int orders = Integer.getInteger("benchmark.orders", 2000);
+        List<Product> products = products(lines, orders * 2);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // Warm up the JIT and fill the id pools before measuring
+        for (int i = 0; i < Math.min(200, orders / 10); i++) {
+            orderService.createOrder(order(total(products)), cart(products));
+        }
+
+        statistics.clear();
+        long begin = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            orderService.createOrder(order(total(products)), cart(products));
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+
+        double statementsPerOrder = (double) statistics.getPrepareStatementCount() / orders;
+        System.out.printf("%d-line orders [jdbc batch size %s]: %d orders in %d ms = %.0f orders/s, "
+                        + "%.3f ms and %.1f statements per order%n",
+                lines, System.getProperty("benchmark.jdbc.batch-size", "50"), orders, elapsedNanos / 1_000_000,
+                orders * 1e9 / elapsedNanos, elapsedNanos / 1e6 / orders, statementsPerOrder);
+
+        assertThat(statistics.getEntityInsertCount()).isGreaterThanOrEqualTo((long) orders * (lines + 1));
+    }
+
+    private List<Product> products(int count, int stock) {
+        Category category = TestSupport.category(categoryRepository, "Benchmark");
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(TestSupport.product(productRepository, category, "Cart product " + i, "4.50", stock));
+        }
+        return products;
+    }
+
+    private static BigDecimal total(List<Product> products) {
+        return new BigDecimal("4.50").multiply(BigDecimal.valueOf(products.size()));
+    }
+
+    private static List<OrderItem> cart(List<Product> products) {
+        return products.stream().map(product -> line(product, 1)).toList();
+    }
+}
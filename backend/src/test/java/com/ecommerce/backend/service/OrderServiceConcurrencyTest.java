@@ -0,0 +1,124 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.exception.InsufficientStockException;
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.OrderRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.support.TestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.ecommerce.backend.support.TestSupport.line;
+import static com.ecommerce.backend.support.TestSupport.order;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Many buyers racing for the same SKU through the conditional stock decrement.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = TestSupport.category(categoryRepository, "Concurrency");
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversellAHotSku() throws Exception {
+        int stock = 50;
+        int attempts = 200;
+        Product product = product("Hot SKU", stock);
+        long ordersBefore = orderRepository.count();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                results.add(pool.submit(buyer(start, product, 1)));
+            }
+            start.countDown();
+
+            int placed = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(60, TimeUnit.SECONDS)) {
+                    placed++;
+                }
+            }
+
+            assertThat(placed).isEqualTo(stock);
+            assertThat(stockOf(product)).isZero();
+            assertThat(orderRepository.count() - ordersBefore).isEqualTo(stock);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shortLineRollsBackTheLinesAlreadyTaken() {
+        Product plenty = product("Plenty", 5);
+        Product soldOut = product("Sold out", 0);
+        long ordersBefore = orderRepository.count();
+
+        assertThatThrownBy(() -> orderService.createOrder(order(new BigDecimal("29.97")),
+                List.of(line(plenty, 2), line(soldOut, 1))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        assertThat(stockOf(plenty)).isEqualTo(5);
+        assertThat(stockOf(soldOut)).isZero();
+        assertThat(orderRepository.count()).isEqualTo(ordersBefore);
+    }
+
+    private Callable<Boolean> buyer(CountDownLatch start, Product product, int quantity) {
+        return () -> {
+            start.await();
+            try {
+                orderService.createOrder(order(product.getPrice()), List.of(line(product, quantity)));
+                return true;
+            } catch (InsufficientStockException e) {
+                return false;
+            }
+        };
+    }
+
+    private Product product(String name, int stock) {
+        return TestSupport.product(productRepository, category, name, "9.99", stock);
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+}
@@ -0,0 +1,132 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.dto.ProductDTO;
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.model.ProductImage;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.ProductImageRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.search.InvertedIndexSearchEngine;
+import com.ecommerce.backend.support.TestSupport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Listing pages cost a fixed number of statements however many rows they
+ * hold: page, count and one batched image fetch. Indexed search replaces
+ * page and count with one lookup of the ranked ids.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductListingQueryCountTest {
+
+    private static final int PRODUCTS = 12;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InvertedIndexSearchEngine searchEngine;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        category = TestSupport.category(categoryRepository, "Listing");
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = TestSupport.product(productRepository, category, "Listed product " + i, "5.00", 3);
+            for (int j = 0; j < 2; j++) {
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setImageUrl("https://img.example.com/" + i + "/" + j + ".png");
+                image.setIsMain(j == 0);
+                productImageRepository.save(image);
+            }
+        }
+    }
+
+    @Test
+    void categoryPageIsThreeStatementsRegardlessOfSize() {
+        Function<Pageable, Page<ProductDTO>> categoryPage =
+                pageable -> productCatalogService.getProductsByCategory(category, pageable);
+
+        assertThat(statementsFor(categoryPage, 5)).isEqualTo(3);
+        assertThat(statementsFor(categoryPage, 10)).isEqualTo(3);
+    }
+
+    @Test
+    void catalogPageIsThreeStatementsRegardlessOfSize() {
+        Function<Pageable, Page<ProductDTO>> catalogPage = productCatalogService::getProducts;
+
+        assertThat(statementsFor(catalogPage, 5)).isEqualTo(3);
+        assertThat(statementsFor(catalogPage, 10)).isEqualTo(3);
+    }
+
+    @Test
+    void indexedSearchIsTwoStatementsRegardlessOfSize() {
+        // The fixtures were saved through the repository, without the events that update the index
+        searchEngine.rebuild();
+        Function<Pageable, Page<ProductDTO>> search =
+                pageable -> productCatalogService.searchProducts("listed product", pageable);
+
+        assertThat(statementsFor(search, 5)).isEqualTo(2);
+        assertThat(statementsFor(search, 10)).isEqualTo(2);
+    }
+
+    @Test
+    void likeFallbackSearchIsThreeStatementsRegardlessOfSize() {
+        // No searchable terms in the keyword, so the LIKE query answers it
+        Function<Pageable, Page<ProductDTO>> search =
+                pageable -> productCatalogService.searchProducts(" ", pageable);
+
+        assertThat(statementsFor(search, 5)).isEqualTo(3);
+        assertThat(statementsFor(search, 10)).isEqualTo(3);
+    }
+
+    @Test
+    void categoryPageCarriesCategoryAndImages() {
+        Page<ProductDTO> page = productCatalogService.getProductsByCategory(category, PageRequest.of(0, 10));
+
+        assertThat(page.getTotalElements()).isEqualTo(PRODUCTS);
+        assertThat(page.getContent()).hasSize(10).allSatisfy(product -> {
+            assertThat(product.getCategoryName()).isEqualTo(category.getName());
+            assertThat(product.getImages()).hasSize(2);
+        });
+    }
+
+    private long statementsFor(Function<Pageable, Page<ProductDTO>> listing, int size) {
+        statistics.clear();
+        Page<ProductDTO> page = listing.apply(PageRequest.of(0, size));
+        assertThat(page.getContent()).hasSize(size);
+        return statistics.getPrepareStatementCount();
+    }
+}
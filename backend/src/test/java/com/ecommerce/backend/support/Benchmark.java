@@ -0,0 +1,25 @@
+package com.ecommerce.backend.support;
+
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a benchmark. Benchmarks are not part of the regular build: they are
+ * skipped unless run as {@code mvn test -Dtest=<class> -Dbenchmark=true},
+ * plus the options each one lists. They use the in-memory H2 database of
+ * the test profile, so their numbers compare modes and revisions with each
+ * other and say little about MySQL.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public @interface Benchmark {
+}
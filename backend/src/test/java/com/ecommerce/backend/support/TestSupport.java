@@ -0,0 +1,124 @@
+package com.ecommerce.backend.support;
+
+import com.ecommerce.backend.dto.RegisterRequest;
+import com.ecommerce.backend.dto.TokenResponse;
+import com.ecommerce.backend.model.Category;
+import com.ecommerce.backend.model.Order;
+import com.ecommerce.backend.model.OrderItem;
+import com.ecommerce.backend.model.Product;
+import com.ecommerce.backend.repository.CategoryRepository;
+import com.ecommerce.backend.repository.ProductRepository;
+import com.ecommerce.backend.service.AuthService;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fixtures and helpers shared by the tests and benchmarks.
+ */
+public final class TestSupport {
+
+    public static final String PASSWORD = "secret-password";
+
+    private TestSupport() {
+    }
+
+    /**
+     * A new order for the test buyer; tracking id and lines are left to the caller.
+     */
+    public static Order order(BigDecimal totalAmount) {
+        Order order = new Order();
+        order.setCustomerName("Buyer");
+        order.setCustomerPhone("5550100");
+        order.setCustomerEmail("buyer@example.com");
+        order.setCustomerAddress("1 Test Street");
+        order.setTotalAmount(totalAmount);
+        return order;
+    }
+
+    public static OrderItem line(Product product, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        item.setPrice(product.getPrice());
+        return item;
+    }
+
+    /**
+     * A category with a unique name, so tests sharing the context do not see each other's rows.
+     */
+    public static Category category(CategoryRepository categoryRepository, String prefix) {
+        Category category = new Category();
+        category.setName(prefix + " " + UUID.randomUUID());
+        return categoryRepository.save(category);
+    }
+
+    /**
+     * A detached product with only id and name, for tests against mocked repositories.
+     */
+    public static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        return product;
+    }
+
+    public static Product product(ProductRepository productRepository, Category category, String name,
+            String price, int stock) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setStock(stock);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+
+    /**
+     * Registers a user with {@link #PASSWORD} and an email derived from the name.
+     */
+    public static TokenResponse register(AuthService authService, String name) {
+        RegisterRequest request = new RegisterRequest();
+        request.setName(name);
+        request.setEmail(name.toLowerCase(Locale.ROOT).replace(' ', '-') + "-" + UUID.randomUUID() + "@example.com");
+        request.setPassword(PASSWORD);
+        return authService.registerUser(request);
+    }
+
+    /**
+     * @param sorted latencies in nanoseconds, ascending
+     * @return the latency at the given fraction, in milliseconds
+     */
+    public static double percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1e6;
+    }
+
+    /**
+     * A TransactionTemplate mock that runs each callback on the calling thread.
+     */
+    public static TransactionTemplate inlineTransactions() {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        return transactionTemplate;
+    }
+
+    /**
+     * Ends the synchronization started with initSynchronization() as a
+     * transaction would, running the registered completion callbacks.
+     */
+    public static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -8,15 +8,14 @@ const RelatedProducts = ({ categoryId, currentProductId }) => {
   useEffect(() => {
     const fetchRelated = async () => {
       try {
-        const response = await productService.getAllProducts(0, 4, categoryId);
-        const filtered = response.content?.filter(p => p.id !== currentProductId);
-        setRelatedProducts(filtered);
+        const related = await productService.getRelatedProducts(currentProductId, 4);
+        setRelatedProducts(related || []);
       } catch (error) {
         console.error('Error fetching related products:', error);
       }
     };
 
-    if (categoryId) fetchRelated();
+    if (currentProductId) fetchRelated();
   }, [categoryId, currentProductId]);
 
   if (!relatedProducts.length) return null;
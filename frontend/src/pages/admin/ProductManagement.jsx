@@ -114,6 +114,8 @@ const ProductManagement = () => {
     if (modalMode === 'add') {
       dispatch(createProduct(productData));
     } else {
+      // Lets the server reject the stock change if sales landed while the form was open
+      productData.expectedStock = selectedProduct.stock;
       dispatch(updateProduct({ id: selectedProduct.id, productData }));
     }
     
@@ -21,6 +21,17 @@ const productService = {
     return response.data;
   },
 
+  getRelatedProducts: async (id, limit = 4) => {
+    const response = await api.get(`/products/${id}/related`, { params: { limit } });
+    return response.data;
+  },
+
+  // Resolves several products in one request; unknown ids come back in missingIds
+  getProductsByIds: async (ids) => {
+    const response = await api.post('/products/batch', { ids });
+    return response.data;
+  },
+
   // Admin endpoints
   createProduct: async (productData) => {
     const response = await api.post('/admin/products', productData);